@@ -0,0 +1,19 @@
+package bfg.backend.service;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Та же колония, но загруженная заново перед каждым вызовом: измеряется расчет без кэшей
+ * рациональности, индексов модулей и успешности (первый запрос после загрузки или изменения колонии).
+ */
+@State(Scope.Benchmark)
+public class ColdColonyState extends ColonyState {
+
+    @Setup(Level.Invocation)
+    public void reloadColony() {
+        reload();
+    }
+}
@@ -0,0 +1,75 @@
+package bfg.backend.service;
+
+import bfg.backend.dto.responce.day.ChangeDay;
+import bfg.backend.dto.responce.optimality.Optimality;
+import bfg.backend.dto.responce.statistics.Statistics;
+import bfg.backend.dto.responce.successful.Successful;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static bfg.backend.service.ColonyState.ID_USER;
+import static bfg.backend.service.logic.Constants.SNAPSHOT_DAYS;
+
+/**
+ * Операции над колонией разного размера: java -jar target/benchmarks.jar ColonyBenchmark -p modules=1000
+ * Колония ColonyState живет все измерение, поэтому getOptimality и getSuccessful после первого вызова
+ * берут результат из кэшей; *Cold - те же запросы к только что загруженной колонии (ColdColonyState).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColonyBenchmark {
+
+    @Benchmark
+    public void recountingProduction(ColonyState state) {
+        synchronized (state.colony) {
+            state.productionService.recountingProduction(state.colony);
+        }
+    }
+
+    @Benchmark
+    public List<Optimality> getOptimality(ColonyState state) {
+        return state.moduleService.getOptimality(ID_USER);
+    }
+
+    @Benchmark
+    public Statistics getStatistics(ColonyState state) {
+        return state.userService.getStatistics(ID_USER);
+    }
+
+    @Benchmark
+    public Successful getSuccessful(ColonyState state) {
+        return state.successfulService.getSuccessful(ID_USER);
+    }
+
+    @Benchmark
+    public List<Optimality> getOptimalityCold(ColdColonyState state) {
+        return state.moduleService.getOptimality(ID_USER);
+    }
+
+    @Benchmark
+    public Successful getSuccessfulCold(ColdColonyState state) {
+        return state.successfulService.getSuccessful(ID_USER);
+    }
+
+    @Benchmark
+    public ChangeDay addDay(ColonyState state) {
+        ChangeDay change = state.dayService.addDay(ID_USER);
+        // Сохранение раз в SNAPSHOT_DAYS дней, как по расписанию: иначе снимки журнала копятся все измерение
+        if (state.colony.getUser().getCurrent_day() % SNAPSHOT_DAYS == 0) {
+            state.flush();
+            state.refill();
+        }
+        return change;
+    }
+}
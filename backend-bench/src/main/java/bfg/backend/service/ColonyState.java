@@ -0,0 +1,118 @@
+package bfg.backend.service;
+
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.resource.RowResourceStore;
+import bfg.backend.repository.user.User;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.TypeModule;
+import bfg.backend.service.logic.TypeResources;
+import bfg.backend.service.logic.zones.Terrain;
+import bfg.backend.service.logic.zones.Zones;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Random;
+
+import static bfg.backend.service.logic.Constants.DAYS_DELIVERY;
+
+/**
+ * Синтетическая колония из modules модулей и сервисы над репозиториями в памяти.
+ * В каждой зоне есть административный модуль, около трети модулей - жилые,
+ * остальные выбираются случайно, так что проверки рациональности проходят до конца.
+ */
+@State(Scope.Benchmark)
+public class ColonyState {
+
+    static final long ID_USER = 1L;
+    // Запас на SNAPSHOT_DAYS дней самой большой колонии (энергия ~10^12 в день); больше нельзя:
+    // оценки рациональности складов считаются в int
+    private static final long COUNT = 1_000_000_000_000_000L;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int modules;
+
+    InMemoryRepositories repositories;
+    ColonyCache colonyCache;
+    ProductionService productionService;
+    ModuleService moduleService;
+    SuccessfulService successfulService;
+    UserService userService;
+    DayService dayService;
+    Colony colony;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repositories = new InMemoryRepositories();
+        repositories.users.put(ID_USER, new User(ID_USER, "bench", "bench@moon", "", 0, DAYS_DELIVERY, true));
+        Random random = new Random(42);
+        for (long id = 1; id <= modules; id++) {
+            int zone = (int) ((id - 1) % Zones.getLength());
+            TypeModule type;
+            if (id <= Zones.getLength()) type = TypeModule.ADMINISTRATIVE_MODULE;
+            else if (random.nextInt(3) == 0) type = random.nextBoolean() ? TypeModule.LIVE_MODULE_X : TypeModule.LIVE_MODULE_Y;
+            else type = TypeModule.values()[random.nextInt(TypeModule.values().length)];
+            Terrain terrain = Zones.getZones().get(zone).getTerrain();
+            Module module = new Module(id, ID_USER, zone, type.ordinal(),
+                    random.nextInt(terrain.getColumns()), random.nextInt(terrain.getRows()));
+            repositories.modules.put(id, module);
+        }
+        for (TypeResources type : TypeResources.values()) {
+            Resource resource = new Resource(new Resource.PrimaryKey(type.ordinal(), ID_USER), COUNT, 1L, 1L, 0L, 0L);
+            repositories.resources.put(resource.getPrimaryKey(), resource);
+        }
+
+        colonyCache = new ColonyCache(repositories.colonySnapshotRepository, repositories.userRepository,
+                new RowResourceStore(repositories.resourceRepository),
+                repositories.successRepository, repositories.eventRepository,
+                TransactionOperations.withoutTransaction(), 16);
+        productionService = new ProductionService(false);
+        CheckPlaceService checkPlaceService = new CheckPlaceService(colonyCache, new ReliefService());
+        successfulService = new SuccessfulService(colonyCache, repositories.successRepository);
+        moduleService = new ModuleService(repositories.moduleRepository, colonyCache, productionService,
+                checkPlaceService, successfulService);
+        userService = new UserService(repositories.userRepository, colonyCache, successfulService);
+        dayService = new DayService(colonyCache, successfulService);
+
+        colony = colonyCache.find(ID_USER).orElseThrow();
+        synchronized (colony) {
+            productionService.recountingProduction(colony);
+        }
+    }
+
+    /**
+     * Запасы пополняются вместе с сохранением (addDay): энергию не доставляют, и колония иначе погибает
+     */
+    void refill() {
+        synchronized (colony) {
+            for (Resource resource : colony.getResources()) {
+                resource.setCount(COUNT);
+            }
+        }
+    }
+
+    /**
+     * Сохранение, как у кэша по расписанию. Сохраненные события и точки истории выбрасываются,
+     * чтобы память не росла за время измерения
+     */
+    void flush() {
+        colonyCache.flush();
+        repositories.events.clear();
+        repositories.successes.clear();
+    }
+
+    /**
+     * Колония загружается заново (производство в ресурсах уже сохранено): индексы модулей,
+     * рациональность и успешность еще не посчитаны
+     */
+    void reload() {
+        flush();
+        colonyCache.remove(ID_USER);
+        colony = colonyCache.find(ID_USER).orElseThrow();
+    }
+}
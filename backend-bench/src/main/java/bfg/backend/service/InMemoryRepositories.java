@@ -0,0 +1,247 @@
+package bfg.backend.service;
+
+import bfg.backend.repository.colony.ColonySnapshot;
+import bfg.backend.repository.colony.ColonySnapshotRepository;
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.event.EventRepository;
+import bfg.backend.repository.event.EventType;
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.link.LinkRepository;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.module.ModuleRepository;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.resource.ResourceRepository;
+import bfg.backend.repository.success.Success;
+import bfg.backend.repository.success.SuccessRepository;
+import bfg.backend.repository.user.User;
+import bfg.backend.repository.user.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Репозитории в памяти вместо базы. Запросы повторяют native-запросы репозиториев, включая порядок строк.
+ */
+class InMemoryRepositories {
+
+    final Map<Long, User> users = new ConcurrentHashMap<>();
+    final Map<Long, Module> modules = new ConcurrentHashMap<>();
+    final Map<Link.PrimaryKey, Link> links = new ConcurrentHashMap<>();
+    final Map<Resource.PrimaryKey, Resource> resources = new ConcurrentHashMap<>();
+    final Map<Success.PrimaryKey, Success> successes = new ConcurrentHashMap<>();
+    final Map<Long, Event> events = new ConcurrentHashMap<>();
+    // Последовательности id, как у BIGSERIAL в базе
+    private final AtomicLong moduleId = new AtomicLong(1_000_000);
+    private final AtomicLong eventId = new AtomicLong();
+
+    final UserRepository userRepository = new Users();
+    final ModuleRepository moduleRepository = new Modules();
+    final LinkRepository linkRepository = new Links();
+    final ResourceRepository resourceRepository = new Resources();
+    final SuccessRepository successRepository = new Successes();
+    final EventRepository eventRepository = new Events();
+
+    // Колонии в том виде, в каком их собирает запрос JdbcColonySnapshotRepository
+    final ColonySnapshotRepository colonySnapshotRepository = ids -> {
+        List<ColonySnapshot> found = new ArrayList<>();
+        for (Long idUser : ids) {
+            User user = users.get(idUser);
+            if (user == null) continue;
+            List<Module> colonyModules = moduleRepository.findByIdUser(idUser);
+            colonyModules.sort(Module::compareTo);
+            List<Resource> colonyResources = resourceRepository.findByIdUser(idUser);
+            colonyResources.sort(Resource::compareTo);
+            boolean journaled = eventRepository.findByIdUser(idUser).stream()
+                    .anyMatch(event -> event.getEventType() == EventType.SNAPSHOT);
+            found.add(new ColonySnapshot(user, colonyModules, linkRepository.findByIdUser(idUser), colonyResources,
+                    journaled));
+        }
+        return found;
+    };
+
+    private class Users extends InMemoryRepository<User, Long> implements UserRepository {
+
+        Users() {
+            super(users);
+        }
+
+        @Override
+        Long id(User user) {
+            return user.getId();
+        }
+
+        @Override
+        Long idUser(User user) {
+            return user.getId();
+        }
+
+        @Override
+        public Optional<User> findByEmail(String email) {
+            return filter(user -> user.getEmail().equals(email)).stream().findFirst();
+        }
+
+        @Override
+        public List<Long> findLiveIds(Long after, int limit) {
+            return filter(user -> user.getLive() && user.getId() > after).stream()
+                    .map(User::getId).sorted().limit(limit).toList();
+        }
+    }
+
+    private class Modules extends InMemoryRepository<Module, Long> implements ModuleRepository {
+
+        Modules() {
+            super(modules);
+        }
+
+        @Override
+        Long id(Module module) {
+            if (module.getId() == null) module.setId(moduleId.incrementAndGet());
+            return module.getId();
+        }
+
+        @Override
+        Long idUser(Module module) {
+            return module.getId_user();
+        }
+
+        @Override
+        public List<Module> findByIdUser(Long id_user) {
+            return findByUser(id_user);
+        }
+
+        @Override
+        public List<Module> insertAll(List<Module> modules) {
+            return saveAll(modules);
+        }
+    }
+
+    private class Links extends InMemoryRepository<Link, Link.PrimaryKey> implements LinkRepository {
+
+        Links() {
+            super(links);
+        }
+
+        @Override
+        Link.PrimaryKey id(Link link) {
+            return link.getPrimaryKey();
+        }
+
+        @Override
+        Long idUser(Link link) {
+            return link.getPrimaryKey().getId_user();
+        }
+
+        @Override
+        public List<Link> findByIdUser(Long id_user) {
+            return findByUser(id_user);
+        }
+    }
+
+    private class Resources extends InMemoryRepository<Resource, Resource.PrimaryKey> implements ResourceRepository {
+
+        Resources() {
+            super(resources);
+        }
+
+        @Override
+        Resource.PrimaryKey id(Resource resource) {
+            return resource.getPrimaryKey();
+        }
+
+        @Override
+        Long idUser(Resource resource) {
+            return resource.getPrimaryKey().getId_user();
+        }
+
+        @Override
+        public List<Resource> findByIdUser(Long id_user) {
+            return findByUser(id_user);
+        }
+
+        @Override
+        public void updateAll(List<Resource> resources) {
+            for (Resource resource : resources) {
+                // Строки удаленных колоний пропускаются
+                store.computeIfPresent(resource.getPrimaryKey(), (key, old) -> resource);
+            }
+        }
+
+        @Override
+        public void upsertAll(List<Resource> resources) {
+            saveAll(resources);
+        }
+    }
+
+    private class Successes extends InMemoryRepository<Success, Success.PrimaryKey> implements SuccessRepository {
+
+        Successes() {
+            super(successes);
+        }
+
+        @Override
+        Success.PrimaryKey id(Success success) {
+            return success.getPrimaryKey();
+        }
+
+        @Override
+        Long idUser(Success success) {
+            return success.getPrimaryKey().getId_user();
+        }
+
+        @Override
+        public List<Success> findByIdUser(Long id_user) {
+            List<Success> found = findByUser(id_user);
+            found.sort(Comparator.comparing(success -> success.getPrimaryKey().getDay()));
+            return found;
+        }
+    }
+
+    private class Events extends InMemoryRepository<Event, Long> implements EventRepository {
+
+        Events() {
+            super(events);
+        }
+
+        @Override
+        Long id(Event event) {
+            if (event.getId() == null) event.setId(eventId.incrementAndGet());
+            return event.getId();
+        }
+
+        @Override
+        Long idUser(Event event) {
+            return event.getId_user();
+        }
+
+        @Override
+        public List<Event> findByIdUser(Long id_user) {
+            List<Event> found = findByUser(id_user);
+            found.sort(Comparator.comparing(Event::getId));
+            return found;
+        }
+
+        @Override
+        public Optional<Event> findSnapshot(Long id_user, Integer day) {
+            return findByIdUser(id_user).stream()
+                    .filter(event -> event.getEventType() == EventType.SNAPSHOT && event.getDay() <= day)
+                    .max(Comparator.comparing(Event::getId));
+        }
+
+        @Override
+        public List<Event> findAfter(Long id_user, Long after, Integer day) {
+            return findByIdUser(id_user).stream()
+                    .filter(event -> event.getId() > after && event.getDay() <= day)
+                    .toList();
+        }
+
+        @Override
+        public void deleteByIdUser(Long id_user) {
+            deleteAll(findByUser(id_user));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package bfg.backend.service;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Репозиторий в памяти поверх отображения id -> сущность. Методы JpaRepository работают, как с базой;
+ * запросы репозиториев (findByIdUser и т.п.) реализуют наследники, поэтому новый запрос, который начнет
+ * вызывать сервис, не даст собрать бенчмарки, а не упадет во время измерения.
+ * Сортировку и запросы по образцу сервисы не используют, они не поддерживаются.
+ */
+abstract class InMemoryRepository<T, ID> implements JpaRepository<T, ID> {
+
+    final Map<ID, T> store;
+
+    InMemoryRepository(Map<ID, T> store) {
+        this.store = store;
+    }
+
+    /**
+     * Ключ сущности; для новой сущности с id из последовательности назначает его, как база при вставке
+     */
+    abstract ID id(T entity);
+
+    abstract Long idUser(T entity);
+
+    List<T> findByUser(Long idUser) {
+        return filter(t -> idUser(t).equals(idUser));
+    }
+
+    List<T> filter(Predicate<T> predicate) {
+        List<T> found = new ArrayList<>();
+        for (T t : store.values()) {
+            if (predicate.test(t)) found.add(t);
+        }
+        return found;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        store.put(id(entity), entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) saved.add(save(entity));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public boolean existsById(ID id) {
+        return store.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ID> ids) {
+        List<T> found = new ArrayList<>();
+        for (ID id : ids) {
+            T t = store.get(id);
+            if (t != null) found.add(t);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(ID id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        store.remove(id(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends ID> ids) {
+        for (ID id : ids) store.remove(id);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) delete(entity);
+    }
+
+    @Override
+    public void deleteAll() {
+        store.clear();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<ID> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(ID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(ID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(ID id) {
+        return findById(id).orElseThrow(() -> new NoSuchElementException(String.valueOf(id)));
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(findAll(), sort);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(findAll(), pageable);
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw byExample();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example,
+                                     Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw byExample();
+    }
+
+    private static UnsupportedOperationException byExample() {
+        return new UnsupportedOperationException("Запросы по образцу в памяти не поддерживаются");
+    }
+
+    private static <S> List<S> sorted(List<S> found, Sort sort) {
+        if (sort.isSorted()) {
+            throw new UnsupportedOperationException("Сортировка в памяти не поддерживается: " + sort);
+        }
+        return found;
+    }
+
+    private static <S> Page<S> page(List<S> found, Pageable pageable) {
+        if (pageable.isUnpaged()) return new PageImpl<>(found);
+        List<S> sorted = sorted(found, pageable.getSort());
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+}
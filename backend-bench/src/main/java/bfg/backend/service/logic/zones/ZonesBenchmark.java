@@ -0,0 +1,39 @@
+package bfg.backend.service.logic.zones;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static bfg.backend.service.logic.Constants.ILLUMINATION;
+
+/**
+ * Загрузка зон, как при старте приложения (Zones), и построение клеток для /area
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(5)
+public class ZonesBenchmark {
+
+    @Benchmark
+    public void load(Blackhole blackhole) {
+        for (int i = 0; i < Zones.getNames().size(); i++) {
+            blackhole.consume(new Area(i, ILLUMINATION[i]));
+        }
+    }
+
+    @Benchmark
+    public void loadWithCells(Blackhole blackhole) {
+        for (int i = 0; i < Zones.getNames().size(); i++) {
+            blackhole.consume(new Area(i, ILLUMINATION[i]).getCells());
+        }
+    }
+}
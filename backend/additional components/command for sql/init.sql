@@ -33,6 +33,23 @@ CREATE TABLE resource(
     PRIMARY KEY(resource_type, id_user)
 );
 
+-- Ресурсы колонии одной строкой (moon.resource.storage=vector), элемент массива - тип ресурса
+--DROP TABLE resource_vector CASCADE;
+CREATE TABLE resource_vector(
+    id_user BIGINT PRIMARY KEY REFERENCES users(id),
+    count BIGINT[],
+    production BIGINT[],
+    consumption BIGINT[],
+    sum_production BIGINT[],
+    sum_consumption BIGINT[]
+);
+-- Перенос из resource:
+-- INSERT INTO resource_vector
+-- SELECT id_user, array_agg(count ORDER BY resource_type), array_agg(production ORDER BY resource_type),
+--        array_agg(consumption ORDER BY resource_type), array_agg(sum_production ORDER BY resource_type),
+--        array_agg(sum_consumption ORDER BY resource_type)
+-- FROM resource GROUP BY id_user;
+
 
 --DROP TABLE link CASCADE;
 CREATE TABLE link(
@@ -41,4 +58,37 @@ CREATE TABLE link(
     id_zone1 INTEGER,
     id_zone2 INTEGER,
     PRIMARY KEY(type, id_user, id_zone1, id_zone2)
-);
\ No newline at end of file
+);
+
+--DROP TABLE success CASCADE;
+CREATE TABLE success( -- история успешности: точка на каждый день, когда значение изменилось
+    id_user BIGINT REFERENCES users(id),
+    day INTEGER,
+    successful INTEGER,
+    mood INTEGER,
+    count_people INTEGER,
+    need_count_people INTEGER,
+    resources INTEGER,
+    central INTEGER,
+    search INTEGER,
+    PRIMARY KEY(id_user, day)
+);
+
+-- Журнал действий колонии: события и снимки состояния (type = 0, state - Snapshot.pack)
+--DROP TABLE colony_event CASCADE;
+CREATE TABLE colony_event(
+    id BIGSERIAL PRIMARY KEY,
+    id_user BIGINT REFERENCES users(id) NOT NULL,
+    day INTEGER NOT NULL,
+    type INTEGER NOT NULL, -- 0 - снимок, 1/2 - модуль построен/удален, 3/4 - связь построена/удалена, 5 - прокрутка дней
+    id_module BIGINT,
+    id_zone INTEGER,
+    module_type INTEGER,
+    x INTEGER,
+    y INTEGER,
+    link_type INTEGER,
+    id_zone2 INTEGER,
+    days INTEGER,
+    state BYTEA
+);
+CREATE INDEX colony_event_user ON colony_event(id_user, id);
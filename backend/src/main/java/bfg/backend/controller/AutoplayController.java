@@ -0,0 +1,24 @@
+package bfg.backend.controller;
+
+
+import bfg.backend.dto.responce.autoplay.AutoplayStatistics;
+import bfg.backend.service.AutoplayService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = "autoplay")
+public class AutoplayController {
+
+    private final AutoplayService autoplayService;
+
+    public AutoplayController(AutoplayService autoplayService) {
+        this.autoplayService = autoplayService;
+    }
+
+    @GetMapping
+    public AutoplayStatistics statistics(){
+        return autoplayService.getStatistics();
+    }
+}
@@ -2,6 +2,8 @@ package bfg.backend.controller;
 
 
 import bfg.backend.dto.request.modulePlace.ModulePlace;
+import bfg.backend.dto.request.zonePlace.ZonePlace;
+import bfg.backend.dto.responce.checkPlace.CheckedMap;
 import bfg.backend.dto.responce.checkPlace.CheckedPlace;
 import bfg.backend.service.CheckPlaceService;
 import org.springframework.web.bind.annotation.*;
@@ -22,4 +24,9 @@ public class CheckPlaceController {
     public CheckedPlace checkPlace(@RequestBody ModulePlace modulePlace){
         return checkPlaceService.check(modulePlace);
     }
+
+    @PostMapping(path = "map")
+    public CheckedMap checkMap(@RequestBody ZonePlace zonePlace){
+        return checkPlaceService.checkMap(zonePlace);
+    }
 }
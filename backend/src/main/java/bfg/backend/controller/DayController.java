@@ -2,24 +2,38 @@ package bfg.backend.controller;
 
 
 import bfg.backend.dto.responce.day.ChangeDay;
+import bfg.backend.dto.responce.day.ChangeDays;
 import bfg.backend.service.DayService;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import bfg.backend.service.DayStreamService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping(path = "day")
 public class DayController {
 
     private final DayService dayService;
+    private final DayStreamService dayStreamService;
 
-    public DayController(DayService dayService) {
+    public DayController(DayService dayService, DayStreamService dayStreamService) {
         this.dayService = dayService;
+        this.dayStreamService = dayStreamService;
     }
 
     @GetMapping(path = "{idUser}")
     public ChangeDay addDay(@PathVariable Long idUser){
         return dayService.addDay(idUser);
     }
+
+    @PostMapping(path = "{idUser}")
+    public ChangeDays addDays(@PathVariable Long idUser,
+                              @RequestParam(defaultValue = "1") Integer days){
+        return dayService.addDays(idUser, days);
+    }
+
+    @GetMapping(path = "{idUser}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable Long idUser){
+        return dayStreamService.subscribe(idUser);
+    }
 }
@@ -0,0 +1,30 @@
+package bfg.backend.controller;
+
+
+import bfg.backend.dto.responce.allUserInfo.AllUserInfo;
+import bfg.backend.dto.responce.history.EventInfo;
+import bfg.backend.service.HistoryService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "history")
+public class HistoryController {
+
+    private final HistoryService historyService;
+
+    public HistoryController(HistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @GetMapping(path = "{idUser}")
+    public AllUserInfo replay(@PathVariable Long idUser, @RequestParam Integer day){
+        return historyService.replay(idUser, day);
+    }
+
+    @GetMapping(path = "{idUser}/events")
+    public List<EventInfo> events(@PathVariable Long idUser){
+        return historyService.getEvents(idUser);
+    }
+}
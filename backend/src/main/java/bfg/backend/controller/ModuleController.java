@@ -32,4 +32,9 @@ public class ModuleController {
     public Integer create(@RequestBody Module module){
         return moduleService.create(module);
     }
+
+    @PostMapping(path = "batch")
+    public Integer createAll(@RequestBody List<Module> modules){
+        return moduleService.createAll(modules);
+    }
 }
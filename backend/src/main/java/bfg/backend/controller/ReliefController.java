@@ -0,0 +1,27 @@
+package bfg.backend.controller;
+
+import bfg.backend.service.ReliefService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = "relief")
+public class ReliefController {
+
+    private final ReliefService reliefService;
+
+    public ReliefController(ReliefService reliefService) {
+        this.reliefService = reliefService;
+    }
+
+    @GetMapping(path = "{typeModule}/{idZone}")
+    public ResponseEntity<byte[]> getRelief(@PathVariable Integer typeModule, @PathVariable Integer idZone){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(reliefService.getReliefMap(typeModule, idZone));
+    }
+}
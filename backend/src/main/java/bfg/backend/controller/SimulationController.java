@@ -0,0 +1,22 @@
+package bfg.backend.controller;
+
+import bfg.backend.dto.request.simulation.Changes;
+import bfg.backend.dto.responce.simulation.Projection;
+import bfg.backend.service.SimulationService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(path = "simulate")
+public class SimulationController {
+
+    private final SimulationService simulationService;
+
+    public SimulationController(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    @PostMapping
+    public Projection simulate(@RequestBody Changes changes){
+        return simulationService.simulate(changes);
+    }
+}
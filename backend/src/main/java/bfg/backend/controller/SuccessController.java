@@ -1,6 +1,7 @@
 package bfg.backend.controller;
 
 
+import bfg.backend.dto.responce.successful.SuccessPoint;
 import bfg.backend.dto.responce.successful.Successful;
 import bfg.backend.service.SuccessfulService;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,6 +9,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping(path = "success")
 public class SuccessController {
@@ -22,4 +25,9 @@ public class SuccessController {
     public Successful successful(@PathVariable Long id){
         return successfulService.getSuccessful(id);
     }
+
+    @GetMapping(path = "{id}/history")
+    public List<SuccessPoint> history(@PathVariable Long id){
+        return successfulService.getHistory(id);
+    }
 }
@@ -0,0 +1,15 @@
+package bfg.backend.dto.request.simulation;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record Changes(
+        @JsonProperty("id_user") Long idUser,
+        Integer days,
+        @JsonProperty("add_modules") List<Module> addModules,
+        @JsonProperty("remove_modules") List<Long> removeModules,
+        @JsonProperty("add_links") List<Link> addLinks,
+        @JsonProperty("remove_links") List<Link> removeLinks) {}
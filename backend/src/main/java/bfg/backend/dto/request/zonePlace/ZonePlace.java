@@ -0,0 +1,8 @@
+package bfg.backend.dto.request.zonePlace;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ZonePlace(
+        @JsonProperty("id_user") Long idUser,
+        @JsonProperty("module_type") Integer typeModule,
+        @JsonProperty("id_zone") Integer idZone) {}
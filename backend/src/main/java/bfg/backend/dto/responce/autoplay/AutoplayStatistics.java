@@ -0,0 +1,8 @@
+package bfg.backend.dto.responce.autoplay;
+
+public record AutoplayStatistics(Boolean enabled,
+                                 Long runs,
+                                 Integer colonies,
+                                 Long millis,
+                                 Double coloniesPerSecond) {
+}
@@ -0,0 +1,11 @@
+package bfg.backend.dto.responce.checkPlace;
+
+/**
+ * Оценки для всех клеток зоны построчно (индекс y * width + x).
+ * null - модуль с левым верхним углом в этой клетке поставить нельзя
+ */
+public record CheckedMap(Integer width,
+                         Integer height,
+                         Integer[] relief,
+                         Integer[] rationality) {
+}
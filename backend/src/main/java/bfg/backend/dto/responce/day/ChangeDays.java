@@ -0,0 +1,6 @@
+package bfg.backend.dto.responce.day;
+
+public record ChangeDays(Boolean live,
+                         Integer days,
+                         long[][] diffResources) {
+}
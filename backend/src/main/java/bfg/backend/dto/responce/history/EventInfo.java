@@ -0,0 +1,14 @@
+package bfg.backend.dto.responce.history;
+
+public record EventInfo(Long id,
+                        Integer day,
+                        String type,
+                        Long idModule,
+                        Integer idZone,
+                        Integer moduleType,
+                        Integer x,
+                        Integer y,
+                        Integer linkType,
+                        Integer idZone2,
+                        Integer days) {
+}
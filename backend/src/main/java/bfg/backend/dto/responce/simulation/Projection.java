@@ -0,0 +1,14 @@
+package bfg.backend.dto.responce.simulation;
+
+import bfg.backend.dto.responce.successful.Successful;
+
+import java.util.List;
+
+public record Projection(Boolean live,
+                         Integer days,
+                         Successful successful,
+                         List<Long> production,
+                         List<Long> consumption,
+                         List<Long> depletionDays,
+                         long[][] countResources) {
+}
@@ -7,5 +7,6 @@ public record Statistics(Integer countDay,
                          List<Long> countResources,
                          List<Long> sumProduction,
                          List<Long> sumConsumption,
-                         List<ZoneProduction> zoneProductions) {
+                         List<ZoneProduction> zoneProductions,
+                         List<Long> depletionDays) {
 }
@@ -0,0 +1,11 @@
+package bfg.backend.dto.responce.successful;
+
+public record SuccessPoint(Integer day,
+                           Integer successful,
+                           Integer mood,
+                           Integer contPeople,
+                           Integer needContPeople,
+                           Integer resources,
+                           Integer central,
+                           Integer search) {
+}
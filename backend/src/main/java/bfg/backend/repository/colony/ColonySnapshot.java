@@ -0,0 +1,19 @@
+package bfg.backend.repository.colony;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.user.User;
+
+import java.util.List;
+
+/**
+ * Колония, загруженная из базы одним запросом. Ресурсы по возрастанию типа, модули по id.
+ * journaled - есть ли у колонии снимок в журнале (у колоний, созданных до журнала, его нет).
+ */
+public record ColonySnapshot(User user,
+                             List<Module> modules,
+                             List<Link> links,
+                             List<Resource> resources,
+                             boolean journaled) {
+}
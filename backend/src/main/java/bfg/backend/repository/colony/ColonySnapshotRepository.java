@@ -0,0 +1,20 @@
+package bfg.backend.repository.colony;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Загрузка колоний (пользователь, модули, связи и ресурсы) за одно обращение к базе
+ */
+public interface ColonySnapshotRepository {
+
+    /**
+     * Колонии существующих пользователей из ids, в произвольном порядке
+     */
+    List<ColonySnapshot> findByIdUsers(List<Long> ids);
+
+    default Optional<ColonySnapshot> findByIdUser(Long idUser) {
+        List<ColonySnapshot> colonies = findByIdUsers(List.of(idUser));
+        return colonies.isEmpty() ? Optional.empty() : Optional.of(colonies.getFirst());
+    }
+}
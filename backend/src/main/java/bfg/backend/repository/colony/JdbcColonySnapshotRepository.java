@@ -0,0 +1,84 @@
+package bfg.backend.repository.colony;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.resource.ResourceStore;
+import bfg.backend.repository.user.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Пользователь и его модули, связи, ресурсы и наличие снимка в журнале одним запросом: строки таблиц собираются
+ * в двумерные массивы (array_agg) в подзапросах по каждому пользователю.
+ */
+@Repository
+public class JdbcColonySnapshotRepository implements ColonySnapshotRepository {
+
+    // Пользователей в одном запросе
+    private static final int ROWS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String select;
+
+    public JdbcColonySnapshotRepository(JdbcTemplate jdbcTemplate, ResourceStore resourceStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.select = "select u.id, u.name, u.email, u.password, u.current_day, u.days_before_delivery, u.live, " +
+                "(select array_agg(array[m.id, m.id_zone, m.module_type, m.x, m.y] order by m.id) " +
+                "from module m where m.id_user = u.id) as modules, " +
+                "(select array_agg(array[l.type, l.id_zone1, l.id_zone2]) " +
+                "from link l where l.id_user = u.id) as links, " +
+                resourceStore.selectByIdUser("u.id") + " as resources, " +
+                "exists(select 1 from colony_event e where e.id_user = u.id and e.type = 0) as journaled " +
+                "from users u where u.id in (%s)";
+    }
+
+    @Override
+    public List<ColonySnapshot> findByIdUsers(List<Long> ids) {
+        List<ColonySnapshot> colonies = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += ROWS) {
+            List<Long> page = ids.subList(from, Math.min(from + ROWS, ids.size()));
+            String sql = select.formatted(String.join(", ", Collections.nCopies(page.size(), "?")));
+            colonies.addAll(jdbcTemplate.query(sql, (rs, rowNum) -> {
+                long idUser = rs.getLong("id");
+                User user = new User(idUser, rs.getString("name"), rs.getString("email"), rs.getString("password"),
+                        rs.getInt("current_day"), rs.getInt("days_before_delivery"), rs.getBoolean("live"));
+
+                List<Module> modules = new ArrayList<>();
+                for (long[] m : rows(rs.getArray("modules"))) {
+                    modules.add(new Module(m[0], idUser, (int) m[1], (int) m[2], (int) m[3], (int) m[4]));
+                }
+                List<Link> links = new ArrayList<>();
+                for (long[] l : rows(rs.getArray("links"))) {
+                    links.add(new Link(new Link.PrimaryKey((int) l[0], idUser, (int) l[1], (int) l[2])));
+                }
+                List<Resource> resources = new ArrayList<>();
+                for (long[] r : rows(rs.getArray("resources"))) {
+                    resources.add(new Resource(new Resource.PrimaryKey((int) r[0], idUser), r[1], r[2], r[3], r[4], r[5]));
+                }
+                return new ColonySnapshot(user, modules, links, resources, rs.getBoolean("journaled"));
+            }, page.toArray()));
+        }
+        return colonies;
+    }
+
+    private static List<long[]> rows(Array array) throws SQLException {
+        List<long[]> rows = new ArrayList<>();
+        if (array == null) return rows;
+        for (Object row : (Object[]) array.getArray()) {
+            Object[] values = (Object[]) row;
+            long[] result = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = ((Number) values[i]).longValue();
+            }
+            rows.add(result);
+        }
+        return rows;
+    }
+}
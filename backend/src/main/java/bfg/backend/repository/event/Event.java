@@ -0,0 +1,168 @@
+package bfg.backend.repository.event;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Запись журнала действий колонии. Заполнены только поля, нужные типу события;
+ * day - текущий день колонии, когда действие выполнено (для DAYS_ADVANCED - день до прокрутки).
+ */
+@Entity
+@Table(name = "colony_event")
+public class Event {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long id_user;
+    private Integer day;
+    private Integer type;
+
+    private Long id_module;
+    private Integer id_zone;
+    private Integer module_type;
+    private Integer x;
+    private Integer y;
+
+    private Integer link_type;
+    private Integer id_zone2;
+
+    private Integer days;
+
+    private byte[] state;
+
+    public Event() {}
+
+    private Event(Long id_user, Integer day, EventType type) {
+        this.id_user = id_user;
+        this.day = day;
+        this.type = type.ordinal();
+    }
+
+    public static Event snapshot(Long idUser, int day, byte[] state) {
+        Event event = new Event(idUser, day, EventType.SNAPSHOT);
+        event.state = state;
+        return event;
+    }
+
+    public static Event modulePlaced(int day, Module module) {
+        return module(day, module, EventType.MODULE_PLACED);
+    }
+
+    public static Event moduleRemoved(int day, Module module) {
+        return module(day, module, EventType.MODULE_REMOVED);
+    }
+
+    public static Event linkBuilt(int day, Link link) {
+        return link(day, link, EventType.LINK_BUILT);
+    }
+
+    public static Event linkRemoved(int day, Link link) {
+        return link(day, link, EventType.LINK_REMOVED);
+    }
+
+    public static Event daysAdvanced(Long idUser, int day, int days) {
+        Event event = new Event(idUser, day, EventType.DAYS_ADVANCED);
+        event.days = days;
+        return event;
+    }
+
+    private static Event module(int day, Module module, EventType type) {
+        Event event = new Event(module.getId_user(), day, type);
+        event.id_module = module.getId();
+        event.id_zone = module.getId_zone();
+        event.module_type = module.getModule_type();
+        event.x = module.getX();
+        event.y = module.getY();
+        return event;
+    }
+
+    private static Event link(int day, Link link, EventType type) {
+        Link.PrimaryKey key = link.getPrimaryKey();
+        Event event = new Event(key.getId_user(), day, type);
+        event.link_type = key.getType();
+        event.id_zone = key.getId_zone1();
+        event.id_zone2 = key.getId_zone2();
+        return event;
+    }
+
+    /**
+     * Добавляет дни к еще не сохраненной прокрутке
+     */
+    public void extend(int days) {
+        this.days += days;
+    }
+
+    public Module toModule() {
+        return new Module(id_module, id_user, id_zone, module_type, x, y);
+    }
+
+    public Link toLink() {
+        return new Link(new Link.PrimaryKey(link_type, id_user, id_zone, id_zone2));
+    }
+
+    public EventType getEventType() {
+        return EventType.of(type);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getId_user() {
+        return id_user;
+    }
+
+    public Integer getDay() {
+        return day;
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public Long getId_module() {
+        return id_module;
+    }
+
+    public Integer getId_zone() {
+        return id_zone;
+    }
+
+    public Integer getModule_type() {
+        return module_type;
+    }
+
+    public Integer getX() {
+        return x;
+    }
+
+    public Integer getY() {
+        return y;
+    }
+
+    public Integer getLink_type() {
+        return link_type;
+    }
+
+    public Integer getId_zone2() {
+        return id_zone2;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    public byte[] getState() {
+        return state;
+    }
+}
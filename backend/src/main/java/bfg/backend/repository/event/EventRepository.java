@@ -0,0 +1,29 @@
+package bfg.backend.repository.event;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface EventRepository extends JpaRepository<Event, Long> {
+
+    @Query(value = "select * from colony_event where id_user = :id_user order by id", nativeQuery = true)
+    List<Event> findByIdUser(Long id_user);
+
+    // Последний снимок не позже дня day
+    @Query(value = "select * from colony_event where id_user = :id_user and type = 0 and day <= :day " +
+            "order by id desc limit 1", nativeQuery = true)
+    Optional<Event> findSnapshot(Long id_user, Integer day);
+
+    @Query(value = "select * from colony_event where id_user = :id_user and id > :after and day <= :day " +
+            "order by id", nativeQuery = true)
+    List<Event> findAfter(Long id_user, Long after, Integer day);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from colony_event where id_user = :id_user", nativeQuery = true)
+    void deleteByIdUser(Long id_user);
+}
@@ -0,0 +1,17 @@
+package bfg.backend.repository.event;
+
+public enum EventType {
+    // Состояние колонии целиком (Snapshot.pack)
+    SNAPSHOT,
+    MODULE_PLACED,
+    MODULE_REMOVED,
+    LINK_BUILT,
+    LINK_REMOVED,
+    DAYS_ADVANCED;
+
+    private static final EventType[] VALUES = values();
+
+    public static EventType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -3,6 +3,8 @@ package bfg.backend.repository.link;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 
+import java.util.Objects;
+
 @Entity
 public class Link {
 
@@ -55,6 +57,19 @@ public class Link {
         public void setId_zone2(Integer id_zone2) {
             this.id_zone2 = id_zone2;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PrimaryKey that)) return false;
+            return Objects.equals(type, that.type) && Objects.equals(id_user, that.id_user) &&
+                    Objects.equals(id_zone1, that.id_zone1) && Objects.equals(id_zone2, that.id_zone2);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id_user, id_zone1, id_zone2);
+        }
     }
 
     public Link(PrimaryKey primaryKey) {
@@ -0,0 +1,18 @@
+package bfg.backend.repository.module;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Вставка модулей пачкой. У модулей id из BIGSERIAL (IDENTITY), поэтому saveAll вставляет их по одному
+ */
+public interface ModuleBatchRepository {
+
+    /**
+     * Вставляет модули, назначая им id из последовательности таблицы
+     * @return те же модули с id
+     */
+    @Transactional
+    List<Module> insertAll(List<Module> modules);
+}
@@ -0,0 +1,46 @@
+package bfg.backend.repository.module;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ModuleBatchRepositoryImpl implements ModuleBatchRepository {
+
+    // 6 параметров на строку, в запросе Postgres их не больше 65535
+    private static final int ROWS = 1000;
+    private static final String ROW = "(?::bigint, ?::bigint, ?::integer, ?::integer, ?::integer, ?::integer)";
+
+    private static final String IDS = "select nextval(pg_get_serial_sequence('module', 'id')) from generate_series(1, ?)";
+    private static final String INSERT = "insert into module (id, id_user, id_zone, module_type, x, y) values %s";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ModuleBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Module> insertAll(List<Module> modules) {
+        for (int from = 0; from < modules.size(); from += ROWS) {
+            List<Module> rows = modules.subList(from, Math.min(from + ROWS, modules.size()));
+            // id берутся заранее: порядок строк в insert ... returning не гарантирован
+            List<Long> ids = jdbcTemplate.queryForList(IDS, Long.class, rows.size());
+            List<Object> args = new ArrayList<>(rows.size() * 6);
+            for (int i = 0; i < rows.size(); i++) {
+                Module module = rows.get(i);
+                module.setId(ids.get(i));
+                args.add(module.getId());
+                args.add(module.getId_user());
+                args.add(module.getId_zone());
+                args.add(module.getModule_type());
+                args.add(module.getX());
+                args.add(module.getY());
+            }
+            String values = String.join(", ", Collections.nCopies(rows.size(), ROW));
+            jdbcTemplate.update(INSERT.formatted(values), args.toArray());
+        }
+        return modules;
+    }
+}
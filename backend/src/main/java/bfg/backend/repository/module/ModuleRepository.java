@@ -5,7 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
-public interface ModuleRepository extends JpaRepository<Module, Long> {
+public interface ModuleRepository extends JpaRepository<Module, Long>, ModuleBatchRepository {
     @Query(value = "select * from module where id_user = :id_user", nativeQuery = true)
     List<Module> findByIdUser(Long id_user);
 }
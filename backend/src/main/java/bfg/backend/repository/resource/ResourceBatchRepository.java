@@ -0,0 +1,23 @@
+package bfg.backend.repository.resource;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Запись ресурсов пачкой: один запрос на много строк вместо select и update на каждую строку в saveAll
+ */
+public interface ResourceBatchRepository {
+
+    /**
+     * Обновляет существующие строки, строки удаленных колоний пропускаются
+     */
+    @Transactional
+    void updateAll(List<Resource> resources);
+
+    /**
+     * Вставляет строки, существующие перезаписывает
+     */
+    @Transactional
+    void upsertAll(List<Resource> resources);
+}
@@ -0,0 +1,58 @@
+package bfg.backend.repository.resource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ResourceBatchRepositoryImpl implements ResourceBatchRepository {
+
+    // 7 параметров на строку, в запросе Postgres их не больше 65535
+    private static final int ROWS = 1000;
+    private static final String ROW = "(?::integer, ?::bigint, ?::bigint, ?::bigint, ?::bigint, ?::bigint, ?::bigint)";
+
+    private static final String UPDATE = "update resource set count = v.count, production = v.production, " +
+            "consumption = v.consumption, sum_production = v.sum_production, sum_consumption = v.sum_consumption " +
+            "from (values %s) as v(resource_type, id_user, count, production, consumption, sum_production, sum_consumption) " +
+            "where resource.resource_type = v.resource_type and resource.id_user = v.id_user";
+    private static final String UPSERT = "insert into resource " +
+            "(resource_type, id_user, count, production, consumption, sum_production, sum_consumption) values %s " +
+            "on conflict (resource_type, id_user) do update set count = excluded.count, " +
+            "production = excluded.production, consumption = excluded.consumption, " +
+            "sum_production = excluded.sum_production, sum_consumption = excluded.sum_consumption";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResourceBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void updateAll(List<Resource> resources) {
+        write(UPDATE, resources);
+    }
+
+    @Override
+    public void upsertAll(List<Resource> resources) {
+        write(UPSERT, resources);
+    }
+
+    private void write(String sql, List<Resource> resources) {
+        for (int from = 0; from < resources.size(); from += ROWS) {
+            List<Resource> rows = resources.subList(from, Math.min(from + ROWS, resources.size()));
+            List<Object> args = new ArrayList<>(rows.size() * 7);
+            for (Resource resource : rows) {
+                args.add(resource.getPrimaryKey().getResource_type());
+                args.add(resource.getPrimaryKey().getId_user());
+                args.add(resource.getCount());
+                args.add(resource.getProduction());
+                args.add(resource.getConsumption());
+                args.add(resource.getSum_production());
+                args.add(resource.getSum_consumption());
+            }
+            String values = String.join(", ", Collections.nCopies(rows.size(), ROW));
+            jdbcTemplate.update(sql.formatted(values), args.toArray());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package bfg.backend.repository.resource;
+
+import java.util.List;
+
+/**
+ * Хранение ресурсов колоний. Способ хранения выбирается moon.resource.storage:
+ * rows - строка на каждый ресурс (таблица resource), vector - одна строка массивов на колонию (resource_vector).
+ * Читаются ресурсы вместе со всей колонией (ColonySnapshotRepository).
+ */
+public interface ResourceStore {
+
+    /**
+     * Обновляет ресурсы существующих колоний, ресурсы удаленных пропускаются
+     */
+    void updateAll(List<Resource> resources);
+
+    /**
+     * Записывает ресурсы новой колонии, прежние перезаписываются
+     */
+    void create(Long idUser, List<Resource> resources);
+
+    void deleteByIdUser(Long idUser);
+
+    /**
+     * SQL-выражение для загрузки колонии одним запросом (ColonySnapshotRepository): ресурсы пользователя idUser
+     * массивом bigint[][] строк [тип, count, production, consumption, sum_production, sum_consumption]
+     * по возрастанию типа, null - если ресурсов нет
+     * @param idUser выражение с id пользователя во внешнем запросе
+     */
+    String selectByIdUser(String idUser);
+}
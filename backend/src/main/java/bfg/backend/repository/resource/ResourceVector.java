@@ -0,0 +1,61 @@
+package bfg.backend.repository.resource;
+
+import java.util.List;
+
+/**
+ * Ресурсы колонии одной строкой: массивы, индексированные по типу ресурса (TypeResources.ordinal())
+ */
+public class ResourceVector {
+
+    private final long[] count;
+    private final long[] production;
+    private final long[] consumption;
+    private final long[] sumProduction;
+    private final long[] sumConsumption;
+
+    public ResourceVector(long[] count, long[] production, long[] consumption,
+                          long[] sumProduction, long[] sumConsumption) {
+        this.count = count;
+        this.production = production;
+        this.consumption = consumption;
+        this.sumProduction = sumProduction;
+        this.sumConsumption = sumConsumption;
+    }
+
+    /**
+     * Вектор по строкам ресурсов одной колонии, порядок строк не важен
+     */
+    public static ResourceVector of(List<Resource> resources) {
+        int n = resources.size();
+        ResourceVector vector = new ResourceVector(new long[n], new long[n], new long[n], new long[n], new long[n]);
+        for (Resource resource : resources) {
+            int i = resource.getPrimaryKey().getResource_type();
+            vector.count[i] = resource.getCount();
+            vector.production[i] = resource.getProduction();
+            vector.consumption[i] = resource.getConsumption();
+            vector.sumProduction[i] = resource.getSum_production();
+            vector.sumConsumption[i] = resource.getSum_consumption();
+        }
+        return vector;
+    }
+
+    public long[] getCount() {
+        return count;
+    }
+
+    public long[] getProduction() {
+        return production;
+    }
+
+    public long[] getConsumption() {
+        return consumption;
+    }
+
+    public long[] getSumProduction() {
+        return sumProduction;
+    }
+
+    public long[] getSumConsumption() {
+        return sumConsumption;
+    }
+}
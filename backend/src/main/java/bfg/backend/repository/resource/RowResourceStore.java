@@ -0,0 +1,39 @@
+package bfg.backend.repository.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(name = "moon.resource.storage", havingValue = "rows", matchIfMissing = true)
+public class RowResourceStore implements ResourceStore {
+
+    private final ResourceRepository resourceRepository;
+
+    public RowResourceStore(ResourceRepository resourceRepository) {
+        this.resourceRepository = resourceRepository;
+    }
+
+    @Override
+    public void updateAll(List<Resource> resources) {
+        resourceRepository.updateAll(resources);
+    }
+
+    @Override
+    public void create(Long idUser, List<Resource> resources) {
+        resourceRepository.upsertAll(resources);
+    }
+
+    @Override
+    public void deleteByIdUser(Long idUser) {
+        resourceRepository.deleteAll(resourceRepository.findByIdUser(idUser));
+    }
+
+    @Override
+    public String selectByIdUser(String idUser) {
+        return "(select array_agg(array[r.resource_type, r.count, r.production, r.consumption, " +
+                "r.sum_production, r.sum_consumption] order by r.resource_type) " +
+                "from resource r where r.id_user = " + idUser + ")";
+    }
+}
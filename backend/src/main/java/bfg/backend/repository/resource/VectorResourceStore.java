@@ -0,0 +1,89 @@
+package bfg.backend.repository.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ресурсы колонии - одна строка таблицы resource_vector с массивами bigint[] по типу ресурса:
+ * при загрузке и сохранении читается и пишется одна строка вместо восьми.
+ */
+@Repository
+@ConditionalOnProperty(name = "moon.resource.storage", havingValue = "vector")
+public class VectorResourceStore implements ResourceStore {
+
+    // 6 параметров на строку, в запросе Postgres их не больше 65535
+    private static final int ROWS = 1000;
+    private static final String ROW = "(?::bigint, ?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[], ?::bigint[])";
+
+    private static final String UPDATE = "update resource_vector set count = v.count, production = v.production, " +
+            "consumption = v.consumption, sum_production = v.sum_production, sum_consumption = v.sum_consumption " +
+            "from (values %s) as v(id_user, count, production, consumption, sum_production, sum_consumption) " +
+            "where resource_vector.id_user = v.id_user";
+    private static final String UPSERT = "insert into resource_vector " +
+            "(id_user, count, production, consumption, sum_production, sum_consumption) values %s " +
+            "on conflict (id_user) do update set count = excluded.count, " +
+            "production = excluded.production, consumption = excluded.consumption, " +
+            "sum_production = excluded.sum_production, sum_consumption = excluded.sum_consumption";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VectorResourceStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Больше ROWS колоний пишется несколькими запросами
+    @Override
+    @Transactional
+    public void updateAll(List<Resource> resources) {
+        write(UPDATE, resources);
+    }
+
+    @Override
+    @Transactional
+    public void create(Long idUser, List<Resource> resources) {
+        write(UPSERT, resources);
+    }
+
+    @Override
+    public void deleteByIdUser(Long idUser) {
+        jdbcTemplate.update("delete from resource_vector where id_user = ?", idUser);
+    }
+
+    @Override
+    public String selectByIdUser(String idUser) {
+        return "(select array_agg(array[t.i - 1, v.count[t.i], v.production[t.i], v.consumption[t.i], " +
+                "v.sum_production[t.i], v.sum_consumption[t.i]] order by t.i) " +
+                "from resource_vector v, generate_subscripts(v.count, 1) as t(i) where v.id_user = " + idUser + ")";
+    }
+
+    private void write(String sql, List<Resource> resources) {
+        Map<Long, List<Resource>> colonies = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            colonies.computeIfAbsent(resource.getPrimaryKey().getId_user(), k -> new ArrayList<>()).add(resource);
+        }
+        List<Map.Entry<Long, List<Resource>>> rows = new ArrayList<>(colonies.entrySet());
+        for (int from = 0; from < rows.size(); from += ROWS) {
+            List<Map.Entry<Long, List<Resource>>> page = rows.subList(from, Math.min(from + ROWS, rows.size()));
+            List<Object> args = new ArrayList<>(page.size() * 6);
+            for (Map.Entry<Long, List<Resource>> row : page) {
+                ResourceVector vector = ResourceVector.of(row.getValue());
+                args.add(row.getKey());
+                args.add(vector.getCount());
+                args.add(vector.getProduction());
+                args.add(vector.getConsumption());
+                args.add(vector.getSumProduction());
+                args.add(vector.getSumConsumption());
+            }
+            String values = String.join(", ", Collections.nCopies(page.size(), ROW));
+            jdbcTemplate.update(sql.formatted(values), args.toArray());
+        }
+    }
+}
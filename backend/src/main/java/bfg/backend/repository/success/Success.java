@@ -0,0 +1,141 @@
+package bfg.backend.repository.success;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+
+import java.util.Objects;
+
+/**
+ * Точка истории успешности: значения действуют с дня day до следующей точки
+ */
+@Entity
+public class Success {
+
+    @EmbeddedId
+    private PrimaryKey primaryKey;
+    private Integer successful;
+    private Integer mood;
+    private Integer count_people;
+    private Integer need_count_people;
+    private Integer resources;
+    private Integer central;
+    private Integer search;
+
+    public static class PrimaryKey{
+        private Long id_user;
+        private Integer day;
+
+        public PrimaryKey(Long id_user, Integer day) {
+            this.id_user = id_user;
+            this.day = day;
+        }
+
+        public PrimaryKey() {}
+
+        public Long getId_user() {
+            return id_user;
+        }
+
+        public void setId_user(Long id_user) {
+            this.id_user = id_user;
+        }
+
+        public Integer getDay() {
+            return day;
+        }
+
+        public void setDay(Integer day) {
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PrimaryKey that)) return false;
+            return Objects.equals(id_user, that.id_user) && Objects.equals(day, that.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id_user, day);
+        }
+    }
+
+    public Success(PrimaryKey primaryKey, Integer successful, Integer mood, Integer count_people,
+                   Integer need_count_people, Integer resources, Integer central, Integer search) {
+        this.primaryKey = primaryKey;
+        this.successful = successful;
+        this.mood = mood;
+        this.count_people = count_people;
+        this.need_count_people = need_count_people;
+        this.resources = resources;
+        this.central = central;
+        this.search = search;
+    }
+
+    public Success() {}
+
+    public PrimaryKey getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public void setPrimaryKey(PrimaryKey primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    public Integer getSuccessful() {
+        return successful;
+    }
+
+    public void setSuccessful(Integer successful) {
+        this.successful = successful;
+    }
+
+    public Integer getMood() {
+        return mood;
+    }
+
+    public void setMood(Integer mood) {
+        this.mood = mood;
+    }
+
+    public Integer getCount_people() {
+        return count_people;
+    }
+
+    public void setCount_people(Integer count_people) {
+        this.count_people = count_people;
+    }
+
+    public Integer getNeed_count_people() {
+        return need_count_people;
+    }
+
+    public void setNeed_count_people(Integer need_count_people) {
+        this.need_count_people = need_count_people;
+    }
+
+    public Integer getResources() {
+        return resources;
+    }
+
+    public void setResources(Integer resources) {
+        this.resources = resources;
+    }
+
+    public Integer getCentral() {
+        return central;
+    }
+
+    public void setCentral(Integer central) {
+        this.central = central;
+    }
+
+    public Integer getSearch() {
+        return search;
+    }
+
+    public void setSearch(Integer search) {
+        this.search = search;
+    }
+}
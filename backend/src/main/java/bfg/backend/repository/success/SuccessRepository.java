@@ -0,0 +1,11 @@
+package bfg.backend.repository.success;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface SuccessRepository extends JpaRepository<Success, Success.PrimaryKey> {
+    @Query(value = "select * from success where id_user = :id_user order by day", nativeQuery = true)
+    List<Success> findByIdUser(Long id_user);
+}
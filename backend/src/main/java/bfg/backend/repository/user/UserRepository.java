@@ -3,10 +3,15 @@ package bfg.backend.repository.user;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query(value = "select * from users where email = :email", nativeQuery = true)
     Optional<User> findByEmail(String email);
+
+    // Страница живых колоний по возрастанию id, начиная после id = after
+    @Query(value = "select id from users where live and id > :after order by id limit :limit", nativeQuery = true)
+    List<Long> findLiveIds(Long after, int limit);
 }
@@ -0,0 +1,123 @@
+package bfg.backend.service;
+
+import bfg.backend.dto.responce.autoplay.AutoplayStatistics;
+import bfg.backend.repository.user.UserRepository;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Автоматическая смена дня всех живых колоний раз в moon.autoplay.period мс (включается moon.autoplay.enabled).
+ * Колонии берутся страницами по moon.autoplay.page-size: отсутствующие в кэше загружаются пачкой,
+ * страница делится на moon.autoplay.partitions частей, каждая считается в своем виртуальном потоке,
+ * после чего изменения страницы сохраняются одной пачкой.
+ */
+@Service
+public class AutoplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutoplayService.class);
+
+    private final UserRepository userRepository;
+    private final ColonyCache colonyCache;
+    private final DayService dayService;
+
+    private final boolean enabled;
+    private final int pageSize;
+    private final int partitions;
+
+    private long runs;
+    private volatile AutoplayStatistics statistics;
+
+    public AutoplayService(UserRepository userRepository, ColonyCache colonyCache, DayService dayService,
+                           @Value("${moon.autoplay.enabled:false}") boolean enabled,
+                           @Value("${moon.autoplay.page-size:500}") int pageSize,
+                           @Value("${moon.autoplay.partitions:8}") int partitions) {
+        this.userRepository = userRepository;
+        this.colonyCache = colonyCache;
+        this.dayService = dayService;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.partitions = partitions;
+        this.statistics = new AutoplayStatistics(enabled, 0L, 0, 0L, 0.0);
+    }
+
+    @Scheduled(fixedDelayString = "${moon.autoplay.period:60000}")
+    public void run() {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        int ticked = 0;
+        long after = 0L;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                List<Long> ids = userRepository.findLiveIds(after, pageSize);
+                if (ids.isEmpty()) break;
+                after = ids.getLast();
+                ticked += tick(executor, colonyCache.findAll(ids));
+                // Страница сохраняется сразу, чтобы в памяти не копились измененные колонии
+                colonyCache.flush();
+                if (ids.size() < pageSize) break;
+            }
+        } catch (RuntimeException e) {
+            log.error("Autoplay stopped after {} colonies", ticked, e);
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        double perSecond = millis == 0 ? ticked : ticked * 1000.0 / millis;
+        statistics = new AutoplayStatistics(true, ++runs, ticked, millis, perSecond);
+        log.info("Autoplay: {} colonies in {} ms ({} colonies/s)", ticked, millis, String.format("%.1f", perSecond));
+    }
+
+    public AutoplayStatistics getStatistics() {
+        return statistics;
+    }
+
+    private int tick(ExecutorService executor, List<Colony> colonies) {
+        int size = Math.max((colonies.size() + partitions - 1) / partitions, 1);
+        List<Future<Integer>> parts = new ArrayList<>();
+        for (int from = 0; from < colonies.size(); from += size) {
+            List<Colony> part = colonies.subList(from, Math.min(from + size, colonies.size()));
+            parts.add(executor.submit(() -> tick(part)));
+        }
+
+        int ticked = 0;
+        for (Future<Integer> part : parts) {
+            try {
+                ticked += part.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Автоматическая смена дня прервана", e);
+            } catch (ExecutionException e) {
+                log.error("Autoplay partition failed", e.getCause());
+            }
+        }
+        return ticked;
+    }
+
+    private int tick(List<Colony> colonies) {
+        int ticked = 0;
+        for (Colony colony : colonies) {
+            synchronized (colony) {
+                // Колония могла погибнуть или быть удалена после загрузки страницы
+                if (colony.isDiscarded() || !colony.getUser().getLive()) continue;
+                try {
+                    dayService.addDay(colony);
+                    ticked++;
+                } catch (RuntimeException e) {
+                    log.error("Failed to advance colony {}", colony.getId(), e);
+                }
+            }
+        }
+        return ticked;
+    }
+}
@@ -1,32 +1,35 @@
 package bfg.backend.service;
 
 import bfg.backend.dto.request.modulePlace.ModulePlace;
+import bfg.backend.dto.request.zonePlace.ZonePlace;
+import bfg.backend.dto.responce.checkPlace.CheckedMap;
 import bfg.backend.dto.responce.checkPlace.CheckedPlace;
-import bfg.backend.repository.link.*;
 import bfg.backend.repository.module.Module;
-import bfg.backend.repository.module.ModuleRepository;
-import bfg.backend.repository.resource.*;
-import bfg.backend.repository.user.*;
+import bfg.backend.repository.user.User;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
+import bfg.backend.service.logic.zones.Terrain;
+import bfg.backend.service.logic.zones.Zones;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 @Service
 public class CheckPlaceService {
 
-    private final UserRepository userRepository;
-    private final LinkRepository linkRepository;
-    private final ModuleRepository moduleRepository;
-    private final ResourceRepository resourceRepository;
+    // С какого числа клеток карту считать параллельно
+    private static final int PARALLEL_CELLS = 1024;
 
-    public CheckPlaceService(UserRepository userRepository, LinkRepository linkRepository, ModuleRepository moduleRepository, ResourceRepository resourceRepository) {
-        this.userRepository = userRepository;
-        this.linkRepository = linkRepository;
-        this.moduleRepository = moduleRepository;
-        this.resourceRepository = resourceRepository;
+    private final ColonyCache colonyCache;
+    private final ReliefService reliefService;
+
+    public CheckPlaceService(ColonyCache colonyCache, ReliefService reliefService) {
+        this.colonyCache = colonyCache;
+        this.reliefService = reliefService;
     }
 
     public CheckedPlace check(ModulePlace modulePlace){
@@ -39,11 +42,12 @@ public class CheckPlaceService {
             throw new IllegalArgumentException("User ID cannot be null");
         }
         
-        Optional<User> optionalUser = userRepository.findById(modulePlace.idUser());
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(modulePlace.idUser());
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
+        Colony colony = optionalColony.get();
+        User user = colony.getUser();
         // if(!user.getLive()){
         //     throw new RuntimeException("Данный пользоваель завершил колнизацию");
         // }
@@ -61,15 +65,14 @@ public class CheckPlaceService {
             throw new IllegalArgumentException("Coordinates (x,y) cannot be null");
         }
 
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        List<Link> links = linkRepository.findByIdUser(user.getId());
-        List<Resource> resources = resourceRepository.findByIdUser(user.getId());
-
-        Component component = TypeModule.values()[modulePlace.typeModule()].
+        Component component = TypeModule.of(modulePlace.typeModule()).
                 createModule(user.getId(), modulePlace.idZone(), modulePlace.x(), modulePlace.y());
 
         Integer relief = component.getRelief();
-        Integer rationality = component.getRationality(modules, links, resources);
+        Integer rationality;
+        synchronized (colony) {
+            rationality = component.getRationality(colony.getModules(), colony.getLinks(), colony.getResources());
+        }
 
         // Если нужно полное тестирование, можно использовать заглушку
         if (System.getProperty("USE_STUBS") != null && System.getProperty("USE_STUBS").equals("true")) {
@@ -98,4 +101,81 @@ public class CheckPlaceService {
         return CheckedPlace.full(true, relief, rationality, height, angle, 
                           illumination, zoneName, lunarLatitude, lunarLongitude, isFlatArea);
     }
+
+    /**
+     * Проверка модуля из пачки без обращения к кэшу колоний: по индексу grid, в котором
+     * уже есть модули колонии и проверенные раньше модули той же пачки.
+     * Проверенный модуль добавляется в grid.
+     */
+    public boolean check(ModuleGrid grid, Module module){
+        if (module == null) {
+            throw new IllegalArgumentException("Module data cannot be null");
+        }
+        if (module.getModule_type() == null) {
+            throw new IllegalArgumentException("Module type cannot be null");
+        }
+        if (module.getId_zone() == null) {
+            throw new IllegalArgumentException("Zone ID cannot be null");
+        }
+        if (module.getX() == null || module.getY() == null) {
+            throw new IllegalArgumentException("Coordinates (x,y) cannot be null");
+        }
+
+        Component component = TypeModule.of(module.getModule_type()).createModule(module);
+        if (grid.overlaps(module, component)) {
+            return false;
+        }
+        grid.add(module, component);
+        return true;
+    }
+
+    /**
+     * Рельеф и рациональность модуля для каждой клетки зоны.
+     * Рельеф берется из готовой карты, рациональность считается только там, где рельеф подходит.
+     * Общие для всех клеток данные (индекс модулей колонии: занятость, администрация, космодромы, люди)
+     * строятся один раз, клетки большой зоны обрабатываются параллельно.
+     */
+    public CheckedMap checkMap(ZonePlace zonePlace){
+        if (zonePlace == null) {
+            throw new IllegalArgumentException("Zone place data cannot be null");
+        }
+        if (zonePlace.idUser() == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (zonePlace.typeModule() == null) {
+            throw new IllegalArgumentException("Module type cannot be null");
+        }
+        if (zonePlace.idZone() == null) {
+            throw new IllegalArgumentException("Zone ID cannot be null");
+        }
+
+        Optional<Colony> optionalColony = colonyCache.find(zonePlace.idUser());
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        Colony colony = optionalColony.get();
+        byte[] reliefMap = reliefService.getReliefMap(zonePlace.typeModule(), zonePlace.idZone());
+        Terrain terrain = Zones.getZones().get(zonePlace.idZone()).getTerrain();
+        int width = terrain.getColumns();
+        TypeModule type = TypeModule.of(zonePlace.typeModule());
+
+        Integer[] relief = new Integer[reliefMap.length];
+        Integer[] rationality = new Integer[reliefMap.length];
+        synchronized (colony) {
+            // Индексы строятся заранее: дальше клетки только читают состояние колонии
+            colony.getModules().getGrid();
+            colony.getModules().getPopulation();
+            // Связность зон для административных модулей после удаления связи перестраивается при первом запросе
+            colony.getLinks().getConnectivity().prepare();
+            IntStream cells = IntStream.range(0, reliefMap.length);
+            if (reliefMap.length >= PARALLEL_CELLS) cells = cells.parallel();
+            cells.forEach(k -> {
+                if (reliefMap[k] == 0) return;
+                relief[k] = (int) reliefMap[k];
+                Component component = type.createModule(colony.getId(), zonePlace.idZone(), k % width, k / width);
+                rationality[k] = component.getRationality(colony.getModules(), colony.getLinks(), colony.getResources());
+            });
+        }
+        return new CheckedMap(width, terrain.getRows(), relief, rationality);
+    }
 }
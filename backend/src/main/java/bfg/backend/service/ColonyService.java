@@ -2,14 +2,18 @@ package bfg.backend.service;
 
 import bfg.backend.dto.responce.allUserInfo.AllUserInfo;
 import bfg.backend.mapping.MappingToResponse;
+import bfg.backend.repository.event.EventRepository;
 import bfg.backend.repository.link.Link;
 import bfg.backend.repository.link.LinkRepository;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.module.ModuleRepository;
 import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
+import bfg.backend.repository.resource.ResourceStore;
+import bfg.backend.repository.success.SuccessRepository;
 import bfg.backend.repository.user.User;
 import bfg.backend.repository.user.UserRepository;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
 import bfg.backend.service.logic.TypeResources;
 import org.springframework.stereotype.Service;
 
@@ -25,57 +29,90 @@ public class ColonyService {
     private final UserRepository userRepository;
     private final LinkRepository linkRepository;
     private final ModuleRepository moduleRepository;
-    private final ResourceRepository resourceRepository;
+    private final ResourceStore resourceStore;
+    private final SuccessRepository successRepository;
+    private final EventRepository eventRepository;
+    private final ColonyCache colonyCache;
+    private final SuccessfulService successfulService;
 
-    public ColonyService(UserRepository userRepository, LinkRepository linkRepository, ModuleRepository moduleRepository, ResourceRepository resourceRepository) {
+    public ColonyService(UserRepository userRepository, LinkRepository linkRepository, ModuleRepository moduleRepository,
+                         ResourceStore resourceStore, SuccessRepository successRepository,
+                         EventRepository eventRepository, ColonyCache colonyCache, SuccessfulService successfulService) {
         this.userRepository = userRepository;
         this.linkRepository = linkRepository;
         this.moduleRepository = moduleRepository;
-        this.resourceRepository = resourceRepository;
+        this.resourceStore = resourceStore;
+        this.successRepository = successRepository;
+        this.eventRepository = eventRepository;
+        this.colonyCache = colonyCache;
+        this.successfulService = successfulService;
     }
 
     public void delete(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
-            throw new RuntimeException("Такого пользователя нет");
-        }
-        User user = optionalUser.get();
+        colonyCache.rewrite(idUser, cachedColony -> {
+            Optional<User> optionalUser = userRepository.findById(idUser);
+            if(optionalUser.isEmpty()){
+                throw new RuntimeException("Такого пользователя нет");
+            }
+            User user = optionalUser.get();
 
-        List<Link> links = linkRepository.findByIdUser(idUser);
-        List<Module> modules = moduleRepository.findByIdUser(idUser);
-        List<Resource> resources = resourceRepository.findByIdUser(idUser);
+            List<Link> links = linkRepository.findByIdUser(idUser);
+            List<Module> modules = moduleRepository.findByIdUser(idUser);
 
-        linkRepository.deleteAll(links);
-        moduleRepository.deleteAll(modules);
-        resourceRepository.deleteAll(resources);
+            linkRepository.deleteAll(links);
+            moduleRepository.deleteAll(modules);
+            resourceStore.deleteByIdUser(idUser);
+            successRepository.deleteAll(successRepository.findByIdUser(idUser));
+            eventRepository.deleteByIdUser(idUser);
 
-        user.setLive(false);
-        userRepository.save(user);
+            user.setLive(false);
+            userRepository.save(user);
+        });
     }
 
     public AllUserInfo create(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
-            throw new RuntimeException("Такого пользователя нет");
-        }
-        User user = optionalUser.get();
-        if(user.getLive()){
-            throw new RuntimeException("У пользователя уже есть колония");
-        }
+        colonyCache.rewrite(idUser, cachedColony -> {
+            Optional<User> optionalUser = userRepository.findById(idUser);
+            if(optionalUser.isEmpty()){
+                throw new RuntimeException("Такого пользователя нет");
+            }
+            User user = optionalUser.get();
+            // Проверка по кэшу, если колония там: в ней могут быть несохраненные изменения (в том числе гибель)
+            boolean live = user.getLive();
+            if(cachedColony.isPresent()){
+                synchronized (cachedColony.get()) {
+                    live = cachedColony.get().getUser().getLive();
+                }
+            }
+            if(live){
+                throw new RuntimeException("У пользователя уже есть колония");
+            }
 
-        user.setLive(true);
-        user.setCurrent_day(0);
-        user.setDays_before_delivery(DAYS_DELIVERY);
+            user.setLive(true);
+            user.setCurrent_day(0);
+            user.setDays_before_delivery(DAYS_DELIVERY);
 
-        List<Resource> resources = new ArrayList<>();
-        for (int i = 0; i < TypeResources.values().length; i++) {
-            resources.add(new Resource(new Resource.PrimaryKey(i, idUser), TypeResources.values()[i].getStartCount(), 0L, 0L, 0L, 0L));
-        }
-        resourceRepository.saveAll(resources);
-
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        List<Link> links = linkRepository.findByIdUser(user.getId());
+            List<Resource> resources = new ArrayList<>();
+            for (int i = 0; i < TypeResources.values().length; i++) {
+                resources.add(new Resource(new Resource.PrimaryKey(i, idUser), TypeResources.values()[i].getStartCount(), 0L, 0L, 0L, 0L));
+            }
+            resourceStore.create(idUser, resources);
+            userRepository.save(user);
+            successRepository.deleteAll(successRepository.findByIdUser(idUser));
+            eventRepository.deleteByIdUser(idUser);
+        });
 
-        return MappingToResponse.mapToAllUserInfo(user, modules, links, resources);
+        // Колония загружается одним запросом вместе с оставшимися модулями и связями
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            // Первая точка истории успешности; начальный снимок журнала пишет ColonyCache при загрузке
+            successfulService.update(colony);
+            return MappingToResponse.mapToAllUserInfo(colony.getUser(), colony.getModules(), colony.getLinks(),
+                    colony.getResources());
+        }
     }
 }
@@ -1,12 +1,14 @@
 package bfg.backend.service;
 
 import bfg.backend.dto.responce.day.ChangeDay;
+import bfg.backend.dto.responce.day.ChangeDays;
+import bfg.backend.repository.event.Event;
 import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
 import bfg.backend.repository.user.User;
-import bfg.backend.repository.user.UserRepository;
-import bfg.backend.service.logic.TypeModule;
-import bfg.backend.service.logic.TypeResources;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.DaySimulator;
+import bfg.backend.service.logic.Snapshot;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -18,57 +20,113 @@ import static bfg.backend.service.logic.Constants.*;
 @Service
 public class DayService {
 
-    private final UserRepository userRepository;
-    private final ResourceRepository resourceRepository;
+    private final ColonyCache colonyCache;
+    private final SuccessfulService successfulService;
 
-    public DayService(UserRepository userRepository, ResourceRepository resourceRepository) {
-        this.userRepository = userRepository;
-        this.resourceRepository = resourceRepository;
+    public DayService(ColonyCache colonyCache, SuccessfulService successfulService) {
+        this.colonyCache = colonyCache;
+        this.successfulService = successfulService;
     }
 
     public ChangeDay addDay(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
+        return toChangeDay(addDays(idUser, 1));
+    }
+
+    // Один день уже найденной колонии, вызывается под блокировкой colony
+    public ChangeDay addDay(Colony colony){
+        return toChangeDay(addDays(colony, 1));
+    }
+
+    private static ChangeDay toChangeDay(ChangeDays changeDays){
+        List<Long> diffResources = new ArrayList<>(changeDays.diffResources()[0].length);
+        for (long diff : changeDays.diffResources()[0]) {
+            diffResources.add(diff);
+        }
+        return new ChangeDay(changeDays.live(), diffResources);
+    }
+
+    // Прокрутка нескольких дней за один проход над ресурсами колонии в памяти
+    public ChangeDays addDays(Long idUser, Integer days){
+        if(days == null || days < 1 || days > MAX_DAYS_BATCH){
+            throw new IllegalArgumentException("Количество дней должно быть от 1 до " + MAX_DAYS_BATCH);
+        }
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            return addDays(colony, days);
+        }
+    }
+
+    private ChangeDays addDays(Colony colony, int days){
+        User user = colony.getUser();
         if(!user.getLive()){
             throw new RuntimeException("Данный пользоваель завершил колнизацию");
         }
 
-        user.setCurrent_day(user.getCurrent_day() + 1);
-        boolean delivery = user.getDays_before_delivery() == 1;
-        if(delivery) user.setDays_before_delivery(DAYS_DELIVERY);
-        else user.setDays_before_delivery(user.getDays_before_delivery() - 1);
+        List<Resource> resources = colony.getResources();
 
-        List<Resource> resources = resourceRepository.findByIdUser(idUser);
-        resources.sort(Resource::compareTo);
+        int n = resources.size();
+        long[] count = new long[n];
+        long[] production = new long[n];
+        long[] consumption = new long[n];
+        long[] sumProduction = new long[n];
+        long[] sumConsumption = new long[n];
+        for (int i = 0; i < n; i++) {
+            Resource resource = resources.get(i);
+            count[i] = resource.getCount();
+            production[i] = resource.getProduction();
+            consumption[i] = resource.getConsumption();
+            sumProduction[i] = resource.getSum_production();
+            sumConsumption[i] = resource.getSum_consumption();
+        }
 
-        // Проверка на достаток кислорода
-        long d = resources.get(TypeResources.O2.ordinal()).getConsumption() - resources.get(TypeResources.O2.ordinal()).getProduction();
-        if(d > 0){
-            resources.get(TypeResources.WT.ordinal()).setConsumption(d * WT_FOR_KG_O2 / 1000 + resources.get(TypeResources.WT.ordinal()).getConsumption());
-            resources.get(TypeResources.H2O.ordinal()).setConsumption((long) (d * H2O_FOR_KG_O2) + resources.get(TypeResources.H2O.ordinal()).getConsumption());
-            resources.get(TypeResources.O2.ordinal()).setProduction(d + resources.get(TypeResources.O2.ordinal()).getProduction());
+        long[][] diffResources = new long[days][n];
+        int startDay = user.getCurrent_day();
+        int currentDay = startDay;
+        int daysBeforeDelivery = user.getDays_before_delivery();
+        boolean live = true;
+        int day = 0;
+        while (live && day < days) {
+            currentDay++;
+            boolean delivery = daysBeforeDelivery == 1;
+            daysBeforeDelivery = delivery ? DAYS_DELIVERY : daysBeforeDelivery - 1;
+
+            DaySimulator.electrolysis(production, consumption);
+            live = DaySimulator.nextDay(count, production, consumption, sumProduction, sumConsumption,
+                    delivery, diffResources[day]);
+            // Точка истории добавляется, только если успешность изменилась
+            successfulService.update(colony, currentDay, production, consumption);
+            day++;
         }
 
-        List<Long> diffResources = new ArrayList<>(resources.size());
-        Long diff;
-        for (Resource resource : resources) {
-            diff = resource.getProduction() - resource.getConsumption();
-            if (delivery && diff < 0 && resource.getPrimaryKey().getResource_type() != TypeResources.WT.ordinal()) {
-                diff -= diff * DAYS_DELIVERY + (resource.getCount() + diff * 5);
-            }
-            diffResources.add(diff);
-            resource.setCount(resource.getCount() + diff);
-            resource.setSum_production(resource.getSum_production() + resource.getProduction());
-            resource.setSum_consumption(resource.getSum_consumption() + resource.getConsumption());
+        for (int i = 0; i < n; i++) {
+            Resource resource = resources.get(i);
+            resource.setCount(count[i]);
+            resource.setProduction(production[i]);
+            resource.setConsumption(consumption[i]);
+            resource.setSum_production(sumProduction[i]);
+            resource.setSum_consumption(sumConsumption[i]);
         }
 
-        Boolean live = resources.stream().allMatch(e -> e.getCount() >= 0);
-        resourceRepository.saveAll(resources);
+        user.setCurrent_day(currentDay);
+        user.setDays_before_delivery(daysBeforeDelivery);
         user.setLive(live);
-        userRepository.save(user);
-        return new ChangeDay(live, diffResources);
+        colony.markDirty();
+
+        colony.addEvent(Event.daysAdvanced(colony.getId(), startDay, day));
+        if(startDay / SNAPSHOT_DAYS != currentDay / SNAPSHOT_DAYS){
+            colony.addEvent(Event.snapshot(colony.getId(), currentDay,
+                    Snapshot.pack(user, colony.getModules(), colony.getLinks(), resources)));
+        }
+
+        if(day < days){
+            long[][] passed = new long[day][];
+            System.arraycopy(diffResources, 0, passed, 0, day);
+            diffResources = passed;
+        }
+        return new ChangeDays(live, day, diffResources);
     }
 }
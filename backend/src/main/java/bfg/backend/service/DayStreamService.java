@@ -0,0 +1,150 @@
+package bfg.backend.service;
+
+import bfg.backend.dto.responce.day.ChangeDay;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Автоматическая смена дней колонии с рассылкой изменений подписчикам (Server-Sent Events).
+ * На колонию заводятся одни часы, пока у нее есть хотя бы один подписчик: раз в moon.stream.day-period мс
+ * день считается один раз и одно и то же изменение отправляется всем подписчикам.
+ * Сохранение в базу - общее для кэша колоний, пачкой раз в moon.cache.flush-delay мс.
+ */
+@Service
+public class DayStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DayStreamService.class);
+
+    private final ColonyCache colonyCache;
+    private final DayService dayService;
+    private final TaskScheduler taskScheduler;
+    private final Duration period;
+
+    private final Map<Long, Clock> clocks = new HashMap<>();
+
+    public DayStreamService(ColonyCache colonyCache, DayService dayService, TaskScheduler taskScheduler,
+                            @Value("${moon.stream.day-period:1000}") long period) {
+        this.colonyCache = colonyCache;
+        this.dayService = dayService;
+        this.taskScheduler = taskScheduler;
+        this.period = Duration.ofMillis(period);
+    }
+
+    public SseEmitter subscribe(Long idUser) {
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        if(!optionalColony.get().getUser().getLive()){
+            throw new RuntimeException("Данный пользоваель завершил колнизацию");
+        }
+
+        // Без ограничения по времени: отключившийся клиент убирается при ошибке отправки
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> unsubscribe(idUser, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(idUser, emitter));
+
+        synchronized (clocks) {
+            Clock clock = clocks.get(idUser);
+            if (clock == null) {
+                clock = new Clock(idUser);
+                clocks.put(idUser, clock);
+                Clock started = clock;
+                clock.future = taskScheduler.scheduleAtFixedRate(() -> tick(started), period);
+            }
+            clock.emitters.add(emitter);
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(Long idUser, SseEmitter emitter) {
+        synchronized (clocks) {
+            Clock clock = clocks.get(idUser);
+            if (clock == null || !clock.emitters.remove(emitter) || !clock.emitters.isEmpty()) return;
+            clocks.remove(idUser);
+            clock.future.cancel(false);
+        }
+    }
+
+    private void tick(Clock clock) {
+        ChangeDay change;
+        int day;
+        try {
+            Optional<Colony> optionalColony = colonyCache.find(clock.idUser);
+            if (optionalColony.isEmpty()) {
+                stop(clock);
+                return;
+            }
+            Colony colony = optionalColony.get();
+            synchronized (colony) {
+                if (!colony.getUser().getLive()) {
+                    stop(clock);
+                    return;
+                }
+                change = dayService.addDay(colony);
+                day = colony.getUser().getCurrent_day();
+            }
+        } catch (RuntimeException e) {
+            // Исключение в задаче отменило бы ее без оповещения подписчиков
+            log.error("Failed to advance colony {}", clock.idUser, e);
+            stop(clock);
+            return;
+        }
+
+        for (SseEmitter emitter : clock.emitters) {
+            try {
+                emitter.send(SseEmitter.event().id(String.valueOf(day)).name("day").data(change));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        if (!change.live()) stop(clock);
+    }
+
+    private void stop(Clock clock) {
+        synchronized (clocks) {
+            clocks.remove(clock.idUser, clock);
+            clock.future.cancel(false);
+        }
+        for (SseEmitter emitter : clock.emitters) {
+            emitter.complete();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Clock> running;
+        synchronized (clocks) {
+            running = new ArrayList<>(clocks.values());
+        }
+        running.forEach(this::stop);
+    }
+
+    private static class Clock {
+        private final Long idUser;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private ScheduledFuture<?> future;
+
+        private Clock(Long idUser) {
+            this.idUser = idUser;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package bfg.backend.service;
+
+import bfg.backend.dto.responce.allUserInfo.AllUserInfo;
+import bfg.backend.dto.responce.history.EventInfo;
+import bfg.backend.mapping.MappingToResponse;
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.event.EventRepository;
+import bfg.backend.repository.event.EventType;
+import bfg.backend.repository.user.User;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.Snapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Журнал действий колонии и восстановление ее состояния на любой прошедший день:
+ * от последнего снимка не позже этого дня применяются следующие за ним события.
+ */
+@Service
+public class HistoryService {
+
+    private final ColonyCache colonyCache;
+    private final EventRepository eventRepository;
+
+    public HistoryService(ColonyCache colonyCache, EventRepository eventRepository) {
+        this.colonyCache = colonyCache;
+        this.eventRepository = eventRepository;
+    }
+
+    public AllUserInfo replay(Long idUser, Integer day) {
+        Colony colony = find(idUser);
+        User user;
+        List<Event> pending;
+        synchronized (colony) {
+            user = colony.getUser();
+            if(day == null || day < 0 || day > user.getCurrent_day()){
+                throw new RuntimeException("Такой день еще не наступил");
+            }
+            pending = new ArrayList<>(colony.getEvents());
+        }
+
+        List<Event> log = new ArrayList<>();
+        Optional<Event> snapshot = eventRepository.findSnapshot(idUser, day);
+        snapshot.ifPresent(log::add);
+        log.addAll(eventRepository.findAfter(idUser, snapshot.map(Event::getId).orElse(0L), day));
+        for (Event event : pending) {
+            if (event.getDay() <= day) log.add(event);
+        }
+
+        int start = -1;
+        for (int i = 0; i < log.size(); i++) {
+            if (log.get(i).getEventType() == EventType.SNAPSHOT) start = i;
+        }
+        if(start == -1){
+            throw new RuntimeException("Журнал колонии не записан");
+        }
+
+        Snapshot state = Snapshot.unpack(user, log.get(start).getState());
+        for (Event event : log.subList(start + 1, log.size())) {
+            if (event.getEventType() == EventType.DAYS_ADVANCED) {
+                // Прокрутка могла закончиться после нужного дня
+                state.advance(Math.min(event.getDays(), day - state.getUser().getCurrent_day()));
+            } else {
+                state.apply(event);
+            }
+        }
+        return MappingToResponse.mapToAllUserInfo(state.getUser(), state.getModules(), state.getLinks(),
+                state.getResources());
+    }
+
+    public List<EventInfo> getEvents(Long idUser) {
+        Colony colony = find(idUser);
+        List<Event> pending;
+        synchronized (colony) {
+            pending = new ArrayList<>(colony.getEvents());
+        }
+        List<Event> events = eventRepository.findByIdUser(idUser);
+        events.addAll(pending);
+
+        List<EventInfo> result = new ArrayList<>(events.size());
+        for (Event e : events) {
+            result.add(new EventInfo(e.getId(), e.getDay(), e.getEventType().name(), e.getId_module(), e.getId_zone(),
+                    e.getModule_type(), e.getX(), e.getY(), e.getLink_type(), e.getId_zone2(), e.getDays()));
+        }
+        return result;
+    }
+
+    private Colony find(Long idUser) {
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        return optionalColony.get();
+    }
+}
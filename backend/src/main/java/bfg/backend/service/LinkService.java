@@ -1,93 +1,108 @@
 package bfg.backend.service;
 
+import bfg.backend.repository.event.Event;
 import bfg.backend.repository.link.Link;
 import bfg.backend.repository.link.LinkRepository;
 import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
 import bfg.backend.repository.user.User;
-import bfg.backend.repository.user.UserRepository;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Optional;
 
 @Service
 public class LinkService {
 
     private final LinkRepository linkRepository;
-    private final UserRepository userRepository;
-    private final ResourceRepository resourceRepository;
+    private final ColonyCache colonyCache;
+    private final SuccessfulService successfulService;
 
-    public LinkService(LinkRepository linkRepository, UserRepository userRepository, ResourceRepository resourceRepository) {
+    public LinkService(LinkRepository linkRepository, ColonyCache colonyCache, SuccessfulService successfulService) {
         this.linkRepository = linkRepository;
-        this.userRepository = userRepository;
-        this.resourceRepository = resourceRepository;
+        this.colonyCache = colonyCache;
+        this.successfulService = successfulService;
     }
 
     public void delete(Link link) {
-        Optional<User> optionalUser = userRepository.findById(link.getPrimaryKey().getId_user());
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(link.getPrimaryKey().getId_user());
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
-        if(!user.getLive()){
-            throw new RuntimeException("Данный пользоваель завершил колнизацию");
-        }
-        //linkRepository.deleteById(new Link.PrimaryKey(type, idUser, idZone1, idZone2));
-        if(linkRepository.findById(link.getPrimaryKey()).isEmpty()){
-            throw new RuntimeException("Такой связи нет");
-        }
-        if(link.getPrimaryKey().getType() == 1){
-            Optional<Resource> optionalResource = resourceRepository.findById(new Resource.PrimaryKey(TypeResources.WT.ordinal(), link.getPrimaryKey().getId_user()));
-            if(optionalResource.isEmpty()){
-                throw new RuntimeException("Такого ресурса нет (как так?)");
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            User user = colony.getUser();
+            if(!user.getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
             }
-            Resource wt = optionalResource.get();
-            int way = Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
-            wt.setConsumption(wt.getConsumption() - way * 12L / 10000);
-            resourceRepository.save(wt);
+            Link existing = find(colony, link.getPrimaryKey());
+            if(existing == null){
+                throw new RuntimeException("Такой связи нет");
+            }
+            if(link.getPrimaryKey().getType() == 1){
+                Optional<Resource> optionalResource = colony.findResource(TypeResources.WT);
+                if(optionalResource.isEmpty()){
+                    throw new RuntimeException("Такого ресурса нет (как так?)");
+                }
+                Resource wt = optionalResource.get();
+                int way = Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
+                wt.setConsumption(wt.getConsumption() - way * 12L / 10000);
+                colony.markDirty();
+            }
+            linkRepository.delete(existing);
+            colony.getLinks().remove(existing);
+            colony.addEvent(Event.linkRemoved(user.getCurrent_day(), existing));
+            successfulService.update(colony);
         }
-        linkRepository.delete(link);
-
     }
 
     public Integer create(Link link) {
-        Optional<User> optionalUser = userRepository.findById(link.getPrimaryKey().getId_user());
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(link.getPrimaryKey().getId_user());
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
-        if(!user.getLive()){
-            throw new RuntimeException("Данный пользоваель завершил колнизацию");
-        }
-        if(linkRepository.findById(link.getPrimaryKey()).isPresent()){
-            throw new RuntimeException("Такая связь уже есть");
-        }
-        linkRepository.save(link);
-        int way = Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
-        if(link.getPrimaryKey().getType() == 0) {
-            Optional<Resource> optionalResource = resourceRepository.findById(new Resource.PrimaryKey(TypeResources.MATERIAL.ordinal(), link.getPrimaryKey().getId_user()));
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            User user = colony.getUser();
+            if(!user.getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
+            }
+            if(find(colony, link.getPrimaryKey()) != null){
+                throw new RuntimeException("Такая связь уже есть");
+            }
+            TypeResources type = link.getPrimaryKey().getType() == 0 ? TypeResources.MATERIAL : TypeResources.WT;
+            Optional<Resource> optionalResource = colony.findResource(type);
             if(optionalResource.isEmpty()){
                 throw new RuntimeException("Такого ресурса нет (как так?)");
             }
-            Resource mat = optionalResource.get();
-            mat.setCount(mat.getCount() - way);
-            if(mat.getCount() < 0){
-                user.setLive(false);
-                userRepository.save(user);
+            linkRepository.save(link);
+            colony.getLinks().add(link);
+            colony.addEvent(Event.linkBuilt(user.getCurrent_day(), link));
+            int way = Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
+            if(link.getPrimaryKey().getType() == 0) {
+                Resource mat = optionalResource.get();
+                mat.setCount(mat.getCount() - way);
+                if(mat.getCount() < 0){
+                    user.setLive(false);
+                }
+                colony.markDirty();
+                successfulService.update(colony);
+                return way;
             }
-            resourceRepository.save(mat);
-            return way;
+            Resource wt = optionalResource.get();
+            wt.setConsumption(wt.getConsumption() + way * 12L / 10000);
+            colony.markDirty();
+            successfulService.update(colony);
+            return 0;
         }
-        Optional<Resource> optionalResource = resourceRepository.findById(new Resource.PrimaryKey(TypeResources.WT.ordinal(), link.getPrimaryKey().getId_user()));
-        if(optionalResource.isEmpty()){
-            throw new RuntimeException("Такого ресурса нет (как так?)");
+    }
+
+    private Link find(Colony colony, Link.PrimaryKey primaryKey) {
+        for (Link link : colony.getLinks()) {
+            if (link.getPrimaryKey().equals(primaryKey)) return link;
         }
-        Resource wt = optionalResource.get();
-        wt.setConsumption(wt.getConsumption() + way * 12L / 10000);
-        resourceRepository.save(wt);
-        return 0;
+        return null;
     }
 }
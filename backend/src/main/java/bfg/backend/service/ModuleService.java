@@ -2,122 +2,196 @@ package bfg.backend.service;
 
 import bfg.backend.dto.request.modulePlace.ModulePlace;
 import bfg.backend.dto.responce.optimality.Optimality;
+import bfg.backend.repository.event.Event;
 import bfg.backend.repository.link.Link;
-import bfg.backend.repository.link.LinkRepository;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.module.ModuleRepository;
 import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
 import bfg.backend.repository.user.User;
-import bfg.backend.repository.user.UserRepository;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.ColonyModules;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class ModuleService {
 
     private final ModuleRepository moduleRepository;
-    private final UserRepository userRepository;
-    private final LinkRepository linkRepository;
-    private final ResourceRepository resourceRepository;
+    private final ColonyCache colonyCache;
 
     private final ProductionService productionService;
     private final CheckPlaceService checkPlaceService;
+    private final SuccessfulService successfulService;
 
-    public ModuleService(ModuleRepository moduleRepository, UserRepository userRepository, LinkRepository linkRepository, ResourceRepository resourceRepository, ProductionService productionService, CheckPlaceService checkPlaceService) {
+    public ModuleService(ModuleRepository moduleRepository, ColonyCache colonyCache, ProductionService productionService,
+                         CheckPlaceService checkPlaceService, SuccessfulService successfulService) {
         this.moduleRepository = moduleRepository;
-        this.userRepository = userRepository;
-        this.linkRepository = linkRepository;
-        this.resourceRepository = resourceRepository;
+        this.colonyCache = colonyCache;
         this.productionService = productionService;
         this.checkPlaceService = checkPlaceService;
+        this.successfulService = successfulService;
     }
 
     public void delete(Long idUser, Long id) {
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
-        if(!user.getLive()){
-            throw new RuntimeException("Данный пользоваель завершил колнизацию");
-        }
-        Optional<Module> optionalModule = moduleRepository.findById(id);
-        if(optionalModule.isEmpty()){
-            throw new RuntimeException("Такого модуля нет");
-        }
-        Module module = optionalModule.get();
-        if(module.getId_user().equals(idUser)){
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            if(!colony.getUser().getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
+            }
+            Module module = null;
+            for (Module m : colony.getModules()) {
+                if (Objects.equals(m.getId(), id)) module = m;
+            }
+            if(module == null){
+                throw new RuntimeException("Такого модуля нет");
+            }
             moduleRepository.delete(module);
-            productionService.recountingProduction(idUser, moduleRepository, linkRepository, resourceRepository);
-        }
-        else {
-            throw new RuntimeException("Такого модуля нет");
+            colony.getModules().remove(module);
+            productionService.moduleRemoved(colony, module);
+            colony.addEvent(Event.moduleRemoved(colony.getUser().getCurrent_day(), module));
+            successfulService.update(colony);
         }
     }
 
     public Integer create(Module module) {
-        if(!checkPlaceService.check(new ModulePlace(module.getId_user(), module.getModule_type(),
-                module.getX(), module.getY(), module.getId_zone())).possible()){
-            throw new RuntimeException("Нельзя поставить в этом месте");
-        }
-
-        Optional<User> optionalUser = userRepository.findById(module.getId_user());
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(module.getId_user());
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
-        if(!user.getLive()){
-            throw new RuntimeException("Данный пользоваель завершил колнизацию");
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            if(!checkPlaceService.check(new ModulePlace(module.getId_user(), module.getModule_type(),
+                    module.getX(), module.getY(), module.getId_zone())).possible()){
+                throw new RuntimeException("Нельзя поставить в этом месте");
+            }
+
+            User user = colony.getUser();
+            if(!user.getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
+            }
+            Optional<Resource> optionalResource = colony.findResource(TypeResources.MATERIAL);
+            if(optionalResource.isEmpty()){
+                throw new RuntimeException("Такого ресурса нет (как так?)");
+            }
+
+            module = moduleRepository.save(module);
+            colony.getModules().add(module);
+            productionService.moduleAdded(colony, module);
+            colony.addEvent(Event.modulePlaced(user.getCurrent_day(), module));
+
+            Resource mat = optionalResource.get();
+            int cost = TypeModule.of(module.getModule_type()).getCost();
+            mat.setCount(mat.getCount() - cost);
+            if(mat.getCount() < 0){
+                user.setLive(false);
+            }
+            colony.markDirty();
+            successfulService.update(colony);
+
+            return cost;
         }
-/*
-        if(moduleRepository.findById(module.getId()).isPresent()){
-            throw new RuntimeException("Такой модуль уже есть");
-        }*/
-        moduleRepository.save(module);
-
-        productionService.recountingProduction(module.getId_user(), moduleRepository, linkRepository, resourceRepository);
+    }
 
-        Optional<Resource> optionalResource = resourceRepository.findById(new Resource.PrimaryKey(TypeResources.MATERIAL.ordinal(), module.getId_user()));
-        if(optionalResource.isEmpty()){
-            throw new RuntimeException("Такого ресурса нет (как так?)");
+    /**
+     * Постановка нескольких модулей одного пользователя. Модули проверяются по очереди на состоянии колонии
+     * вместе с уже проверенными модулями пачки, сохраняются пачкой, материал списывается один раз
+     * и производство пересчитывается один раз. Если хоть один модуль поставить нельзя, не ставится ни один.
+     * @return суммарная стоимость модулей
+     */
+    public Integer createAll(List<Module> modules) {
+        if(modules == null || modules.isEmpty()){
+            throw new RuntimeException("Нет модулей");
         }
-        Resource mat = optionalResource.get();
-        int cost = TypeModule.values()[module.getModule_type()].getCost();
-        mat.setCount(mat.getCount() - cost);
-        if(mat.getCount() < 0){
-            user.setLive(false);
-            userRepository.save(user);
+        Long idUser = modules.get(0).getId_user();
+        for (Module module : modules) {
+            if(module == null || !Objects.equals(module.getId_user(), idUser)){
+                throw new RuntimeException("Модули должны быть одного пользователя");
+            }
+        }
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            User user = colony.getUser();
+            if(!user.getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
+            }
+            Optional<Resource> optionalResource = colony.findResource(TypeResources.MATERIAL);
+            if(optionalResource.isEmpty()){
+                throw new RuntimeException("Такого ресурса нет (как так?)");
+            }
+
+            // Отдельный индекс: модули колонии и уже проверенные модули пачки, сама колония до сохранения не меняется
+            ModuleGrid grid = new ModuleGrid(colony.getModules());
+            List<Module> placed = new ArrayList<>(modules.size());
+            int cost = 0;
+            for (int i = 0; i < modules.size(); i++) {
+                Module module = modules.get(i);
+                // Копия без id: модули запроса не меняются, id назначит база
+                Module copy = new Module(null, idUser, module.getId_zone(), module.getModule_type(),
+                        module.getX(), module.getY());
+                if(!checkPlaceService.check(grid, copy)){
+                    throw new RuntimeException("Нельзя поставить в этом месте (модуль " + i + ")");
+                }
+                cost += TypeModule.of(copy.getModule_type()).getCost();
+                placed.add(copy);
+            }
+
+            placed = moduleRepository.insertAll(placed);
+            colony.getModules().addAll(placed);
+            productionService.recountingProduction(colony);
+            for (Module module : placed) {
+                colony.addEvent(Event.modulePlaced(user.getCurrent_day(), module));
+            }
+
+            Resource mat = optionalResource.get();
+            mat.setCount(mat.getCount() - cost);
+            if(mat.getCount() < 0){
+                user.setLive(false);
+            }
+            colony.markDirty();
+            successfulService.update(colony);
+
+            return cost;
         }
-
-        return cost;
     }
 
     public List<Optimality> getOptimality(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Нет такого пользователя");
         }
-        User user = optionalUser.get();
-
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        List<Link> links = linkRepository.findByIdUser(user.getId());
-        List<Resource> resources = resourceRepository.findByIdUser(user.getId());
-
-        List<Optimality> optimalityList = new ArrayList<>(modules.size());
-        for (int i = 0; i < modules.size(); i++) {
-            Component component = TypeModule.values()[modules.get(i).getModule_type()].createModule(modules.get(i));
-            Integer relief = component.getRelief();
-            Integer rationality = component.getRationality(modules, links, resources);
-            optimalityList.add(new Optimality(modules.get(i).getId(), relief, rationality));
+        Colony colony = optionalColony.get();
+
+        synchronized (colony) {
+            ColonyModules modules = colony.getModules();
+            List<Link> links = colony.getLinks();
+            List<Resource> resources = colony.getResources();
+
+            List<Optimality> optimalityList = new ArrayList<>(modules.size());
+            for (int i = 0; i < modules.size(); i++) {
+                Component component = Component.of(modules, modules.get(i));
+                Integer relief = component.getRelief();
+                Integer rationality = modules.getRationality(modules.get(i), links, resources);
+                optimalityList.add(new Optimality(modules.get(i).getId(), relief, rationality));
+            }
+
+            return optimalityList;
         }
-
-        return optimalityList;
     }
 }
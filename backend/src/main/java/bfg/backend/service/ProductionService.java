@@ -1,45 +1,82 @@
 package bfg.backend.service;
 
 import bfg.backend.repository.link.Link;
-import bfg.backend.repository.link.LinkRepository;
 import bfg.backend.repository.module.Module;
-import bfg.backend.repository.module.ModuleRepository;
 import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
-import bfg.backend.service.logic.Component;
-import bfg.backend.service.logic.TypeModule;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.logic.ProductionLedger;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
 class ProductionService {
 
-    public void recountingProduction(Long idUser, ModuleRepository moduleRepository,
-                                     LinkRepository linkRepository, ResourceRepository resourceRepository){
-        List<Module> modules = moduleRepository.findByIdUser(idUser);
-        List<Link> links = linkRepository.findByIdUser(idUser);
-        List<Resource> resources = resourceRepository.findByIdUser(idUser);
-        resources.sort(Resource::compareTo);
-
-        List<Long> production = new ArrayList<>(TypeResources.values().length);
-        List<Long> consumption = new ArrayList<>(TypeResources.values().length);
-        for (int j = 0; j < TypeResources.values().length; j++) {
-            production.add(0L);
-            consumption.add(0L);
+    private static final Logger log = LoggerFactory.getLogger(ProductionService.class);
+
+    // Сверять инкрементальный пересчет с полным (moon.production.verify=true)
+    private final boolean verify;
+
+    public ProductionService(@Value("${moon.production.verify:false}") boolean verify) {
+        this.verify = verify;
+    }
+
+    /**
+     * Полный пересчет производства колонии. Вызывать под блокировкой колонии.
+     */
+    public void recountingProduction(Colony colony){
+        ProductionLedger ledger = ProductionLedger.recount(colony.getModules());
+        colony.setLedger(ledger);
+        save(colony, ledger);
+    }
+
+    /**
+     * @param module уже добавлен в colony.getModules()
+     */
+    public void moduleAdded(Colony colony, Module module){
+        change(colony, module, true);
+    }
+
+    /**
+     * @param module уже удален из colony.getModules()
+     */
+    public void moduleRemoved(Colony colony, Module module){
+        change(colony, module, false);
+    }
+
+    private void change(Colony colony, Module module, boolean added){
+        ProductionLedger ledger = colony.getLedger();
+        if(ledger == null){
+            recountingProduction(colony);
+            return;
         }
+        if(added) ledger.add(module, colony.getModules());
+        else ledger.remove(module, colony.getModules());
 
-        for(Module mod : modules){
-            Component component = TypeModule.values()[mod.getModule_type()].createModule(mod);
-            component.getProduction(-1, modules, production);
-            component.getConsumption(-1, modules, consumption);
+        if(verify){
+            ProductionLedger full = ProductionLedger.recount(colony.getModules());
+            if(!full.matches(ledger)){
+                log.warn("Production ledger of user {} diverged: production {} != {}, consumption {} != {}",
+                        colony.getId(), Arrays.toString(ledger.getProduction()), Arrays.toString(full.getProduction()),
+                        Arrays.toString(ledger.getConsumption()), Arrays.toString(full.getConsumption()));
+                ledger = full;
+                colony.setLedger(full);
+            }
         }
+        save(colony, ledger);
+    }
+
+    private void save(Colony colony, ProductionLedger ledger){
+        List<Resource> resources = colony.getResources();
 
         long consWt = 0L;
-        for(Link link : links){
+        for(Link link : colony.getLinks()){
             if(link.getPrimaryKey().getType() == 1){
                 consWt += Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
             }
@@ -47,10 +84,9 @@ class ProductionService {
         consWt = consWt * 12L / 10000;
 
         for (int i = 0; i < resources.size() - 1; i++) { // dirty hack
-            resources.get(i).setProduction(production.get(i));
-            resources.get(i).setConsumption(consumption.get(i) + (i == TypeResources.WT.ordinal() ? consWt : 0L));
+            resources.get(i).setProduction(ledger.getProduction()[i]);
+            resources.get(i).setConsumption(ledger.getConsumption()[i] + (i == TypeResources.WT.ordinal() ? consWt : 0L));
         }
-
-        resourceRepository.saveAll(resources);
+        colony.markDirty();
     }
 }
@@ -0,0 +1,47 @@
+package bfg.backend.service;
+
+import bfg.backend.service.logic.TypeModule;
+import bfg.backend.service.logic.zones.Terrain;
+import bfg.backend.service.logic.zones.Zones;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Карты рельефа: оценка getRelief() для модуля заданного типа в каждой клетке зоны.
+ * Рельеф зависит только от зоны и размеров модуля, поэтому карта считается один раз при первом запросе.
+ */
+@Service
+public class ReliefService {
+
+    private final Map<Integer, byte[]> maps = new ConcurrentHashMap<>();
+
+    /**
+     * Байт на клетку построчно (индекс y * ширина + x), 0 - поставить модуль нельзя
+     */
+    public byte[] getReliefMap(Integer typeModule, Integer idZone) {
+        if (typeModule == null || typeModule < 0 || typeModule >= TypeModule.values().length) {
+            throw new RuntimeException("Такого типа модуля нет");
+        }
+        if (idZone == null || idZone < 0 || idZone >= Zones.getLength()) {
+            throw new RuntimeException("Такой зоны нет");
+        }
+        return maps.computeIfAbsent(typeModule * Zones.getLength() + idZone, k -> calculate(typeModule, idZone));
+    }
+
+    private static byte[] calculate(int typeModule, int idZone) {
+        TypeModule type = TypeModule.of(typeModule);
+        Terrain terrain = Zones.getZones().get(idZone).getTerrain();
+        int columns = terrain.getColumns();
+        byte[] map = new byte[columns * terrain.getRows()];
+        for (int y = 0; y < terrain.getRows(); y++) {
+            for (int x = 0; x < columns; x++) {
+                Integer relief = type.createModule(null, idZone, x, y).getRelief();
+                // Оценка не больше 10 * MAX_ANGLE = 100
+                map[y * columns + x] = relief == null ? 0 : relief.byteValue();
+            }
+        }
+        return map;
+    }
+}
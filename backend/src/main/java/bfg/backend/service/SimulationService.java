@@ -0,0 +1,164 @@
+package bfg.backend.service;
+
+import bfg.backend.dto.request.simulation.Changes;
+import bfg.backend.dto.responce.simulation.Projection;
+import bfg.backend.dto.responce.successful.Successful;
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.DepletionForecast;
+import bfg.backend.service.logic.ModuleGrid;
+import bfg.backend.service.logic.Snapshot;
+import bfg.backend.service.logic.SuccessScore;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Расчет "что будет, если": изменения модулей и связей применяются к копии колонии (Snapshot)
+ * теми же правилами, что в ModuleService и LinkService, затем дни прокручиваются как в DayService.
+ * Ни кэш колоний, ни база не меняются.
+ */
+@Service
+public class SimulationService {
+
+    // Не больше 10 лет за запрос
+    private static final int MAX_DAYS = 3650;
+
+    private final ColonyCache colonyCache;
+    private final CheckPlaceService checkPlaceService;
+
+    public SimulationService(ColonyCache colonyCache, CheckPlaceService checkPlaceService) {
+        this.colonyCache = colonyCache;
+        this.checkPlaceService = checkPlaceService;
+    }
+
+    /**
+     * Сначала удаляются модули и связи, затем строятся связи и ставятся модули в порядке запроса
+     */
+    public Projection simulate(Changes changes) {
+        if (changes == null || changes.idUser() == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        int days = changes.days() == null ? 0 : changes.days();
+        if(days < 0 || days > MAX_DAYS){
+            throw new RuntimeException("Можно прокрутить от 0 до " + MAX_DAYS + " дней");
+        }
+        Optional<Colony> optionalColony = colonyCache.find(changes.idUser());
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
+        }
+        Colony colony = optionalColony.get();
+        Snapshot snapshot;
+        synchronized (colony) {
+            if(!colony.getUser().getLive()){
+                throw new RuntimeException("Данный пользоваель завершил колнизацию");
+            }
+            snapshot = Snapshot.of(colony.getUser(), colony.getModules(), colony.getLinks(), colony.getResources());
+        }
+
+        apply(snapshot, changes);
+
+        List<Resource> resources = snapshot.getResources();
+        List<Long> production = new ArrayList<>(resources.size());
+        List<Long> consumption = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            production.add(resource.getProduction());
+            consumption.add(resource.getConsumption());
+        }
+        Successful successful = SuccessScore.of(snapshot.getModules()).evaluate(resources);
+        List<Long> depletionDays = DepletionForecast.toDays(DepletionForecast.of(resources,
+                snapshot.getUser().getDays_before_delivery()), snapshot.getUser().getCurrent_day());
+
+        long[][] countResources = new long[days][];
+        int day = 0;
+        for (; day < days && snapshot.getUser().getLive(); day++) {
+            snapshot.advance(1);
+            countResources[day] = new long[resources.size()];
+            for (int i = 0; i < resources.size(); i++) {
+                countResources[day][i] = resources.get(i).getCount();
+            }
+        }
+        return new Projection(snapshot.getUser().getLive(), day, successful, production, consumption,
+                depletionDays, Arrays.copyOf(countResources, day));
+    }
+
+    private void apply(Snapshot snapshot, Changes changes) {
+        Long idUser = snapshot.getUser().getId();
+        int day = snapshot.getUser().getCurrent_day();
+
+        if (changes.removeModules() != null) {
+            for (Long id : changes.removeModules()) {
+                Module module = null;
+                for (Module m : snapshot.getModules()) {
+                    if (Objects.equals(m.getId(), id)) module = m;
+                }
+                if(module == null){
+                    throw new RuntimeException("Такого модуля нет");
+                }
+                snapshot.apply(Event.moduleRemoved(day, module));
+            }
+        }
+        if (changes.removeLinks() != null) {
+            for (Link link : changes.removeLinks()) {
+                Link own = own(idUser, link);
+                if(!contains(snapshot.getLinks(), own)){
+                    throw new RuntimeException("Такой связи нет");
+                }
+                snapshot.apply(Event.linkRemoved(day, own));
+            }
+        }
+        if (changes.addLinks() != null) {
+            for (Link link : changes.addLinks()) {
+                Link own = own(idUser, link);
+                if(contains(snapshot.getLinks(), own)){
+                    throw new RuntimeException("Такая связь уже есть");
+                }
+                snapshot.apply(Event.linkBuilt(day, own));
+            }
+        }
+        if (changes.addModules() != null) {
+            // Новым модулям - id больше существующих, как у построенных позже
+            long id = 0L;
+            for (Module module : snapshot.getModules()) {
+                id = Math.max(id, module.getId());
+            }
+            ModuleGrid grid = new ModuleGrid(snapshot.getModules());
+            for (int i = 0; i < changes.addModules().size(); i++) {
+                Module module = changes.addModules().get(i);
+                if (module == null) {
+                    throw new IllegalArgumentException("Module data cannot be null");
+                }
+                Module placed = new Module(++id, idUser, module.getId_zone(), module.getModule_type(),
+                        module.getX(), module.getY());
+                if(!checkPlaceService.check(grid, placed)){
+                    throw new RuntimeException("Нельзя поставить в этом месте (модуль " + i + ")");
+                }
+                snapshot.apply(Event.modulePlaced(day, placed));
+            }
+        }
+    }
+
+    private static boolean contains(List<Link> links, Link link) {
+        for (Link l : links) {
+            if (l.getPrimaryKey().equals(link.getPrimaryKey())) return true;
+        }
+        return false;
+    }
+
+    // Связь колонии с тем же типом и зонами
+    private static Link own(Long idUser, Link link) {
+        if (link == null || link.getPrimaryKey() == null) {
+            throw new IllegalArgumentException("Link data cannot be null");
+        }
+        Link.PrimaryKey key = link.getPrimaryKey();
+        return new Link(new Link.PrimaryKey(key.getType(), idUser, key.getId_zone1(), key.getId_zone2()));
+    }
+}
@@ -1,120 +1,93 @@
 package bfg.backend.service;
 
+import bfg.backend.dto.responce.successful.SuccessPoint;
 import bfg.backend.dto.responce.successful.Successful;
-import bfg.backend.repository.module.Module;
-import bfg.backend.repository.module.ModuleRepository;
-import bfg.backend.repository.resource.Resource;
-import bfg.backend.repository.resource.ResourceRepository;
-import bfg.backend.repository.user.User;
-import bfg.backend.repository.user.UserRepository;
-import bfg.backend.service.logic.TypeModule;
-import bfg.backend.service.logic.TypeResources;
-import bfg.backend.service.logic.zones.Zones;
+import bfg.backend.repository.success.Success;
+import bfg.backend.repository.success.SuccessRepository;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.SuccessScore;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
-import static bfg.backend.service.logic.Constants.DAYS_DELIVERY;
-import static bfg.backend.service.logic.Constants.MASS;
-
+/**
+ * Успешность колонии хранится в Colony и пересчитывается сервисами, меняющими модули, связи и ресурсы.
+ * Составляющие, зависящие от модулей, берутся из SuccessScore и считаются заново только после изменения модулей.
+ */
 @Service
 public class SuccessfulService {
 
-    private final UserRepository userRepository;
-    private final ModuleRepository moduleRepository;
-    private final ResourceRepository resourceRepository;
+    private final ColonyCache colonyCache;
+    private final SuccessRepository successRepository;
 
-    public SuccessfulService(UserRepository userRepository, ModuleRepository moduleRepository, ResourceRepository resourceRepository) {
-        this.userRepository = userRepository;
-        this.moduleRepository = moduleRepository;
-        this.resourceRepository = resourceRepository;
+    public SuccessfulService(ColonyCache colonyCache, SuccessRepository successRepository) {
+        this.colonyCache = colonyCache;
+        this.successRepository = successRepository;
     }
 
     public Successful getSuccessful(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
-            throw new RuntimeException("Такого пользователя нет");
+        Colony colony = findColony(idUser);
+        synchronized (colony) {
+            return getSuccessful(colony);
         }
-        User user = optionalUser.get();
-
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        modules.sort(Module::compareTo);
-        List<Resource> resources = resourceRepository.findByIdUser(user.getId());
-        resources.sort(Resource::compareTo);
-
-        int successful = 0;
-        int mood = 0;
-        int countPeople = 0;
-        int needCountPeople = 0;
-        int statResources = 0;
-        int central = 0;
-        int search = 0;
+    }
 
-        long sumDiff = 0L;
-        for(Resource resource : resources){
-            long diff = resource.getProduction() - resource.getConsumption();
-            if(diff < 0) sumDiff -= diff;
+    /**
+     * Успешность уже загруженной колонии. Вызывать под блокировкой колонии.
+     */
+    public Successful getSuccessful(Colony colony){
+        if(colony.getSuccess() == null){
+            colony.initSuccess(SuccessScore.of(colony.getModules()).evaluate(colony.getResources()));
         }
-        statResources = Math.toIntExact(100 - (sumDiff * DAYS_DELIVERY) / MASS * 100);
-
-        int countA = 0;
-        int pSearch = 0;
-        int mSearch = 0;
-        int lSearch = 0;
-        int aSearch = 0;
-        int countM = 0;
-        int countS = 0;
-
-        countPeople = Math.toIntExact(modules.stream().filter(e -> e.getModule_type() == TypeModule.LIVE_MODULE_Y.ordinal() ||
-                e.getModule_type() == TypeModule.LIVE_MODULE_X.ordinal()).count()) * 8;
-
-        for (Module module : modules){
-            switch (TypeModule.values()[module.getModule_type()]){
-                case ADMINISTRATIVE_MODULE:
-                case LIVE_ADMINISTRATIVE_MODULE:
-                    if(needCountPeople >= countPeople) break;
-                    countA++;
-                    break;
+        return colony.getSuccess();
+    }
 
-                case RESEARCH_MODULE_MINE:
-                    if(needCountPeople >= countPeople) break;
-                    mSearch = 1;
-                    break;
-                case RESEARCH_MODULE_PLANTATION:
-                    if(needCountPeople >= countPeople) break;
-                    pSearch = 1;
-                    break;
-                case RESEARCH_MODULE_TELESCOPE:
-                    if(needCountPeople >= countPeople) break;
-                    aSearch = 1;
-                    break;
-                case RESEARCH_MODULE_TERRITORY:
-                    if(needCountPeople >= countPeople) break;
-                    lSearch = 1;
-                    break;
+    /**
+     * Пересчет после изменения колонии в текущий день. Вызывать под блокировкой колонии.
+     */
+    public void update(Colony colony){
+        colony.setSuccess(colony.getUser().getCurrent_day(),
+                SuccessScore.of(colony.getModules()).evaluate(colony.getResources()));
+    }
 
-                case MEDICAL_MODULE:
-                    countM++;
-                    break;
+    /**
+     * Пересчет на день day при заданных производстве и потреблении (прокрутка дней). Вызывать под блокировкой колонии.
+     */
+    public void update(Colony colony, int day, long[] production, long[] consumption){
+        colony.setSuccess(day, SuccessScore.of(colony.getModules()).evaluate(production, consumption));
+    }
 
-                case SPORT_MODULE:
-                    countS++;
-                    break;
-            }
-            needCountPeople += TypeModule.values()[module.getModule_type()].getPeople();
+    /**
+     * История успешности: точки на дни, в которые значение изменилось, по возрастанию дня
+     */
+    public List<SuccessPoint> getHistory(Long idUser){
+        Colony colony = findColony(idUser);
+        Map<Integer, Successful> pending;
+        synchronized (colony) {
+            pending = new TreeMap<>(colony.getHistory());
         }
+        Map<Integer, SuccessPoint> points = new TreeMap<>();
+        for (Success success : successRepository.findByIdUser(idUser)) {
+            points.put(success.getPrimaryKey().getDay(), new SuccessPoint(success.getPrimaryKey().getDay(),
+                    success.getSuccessful(), success.getMood(), success.getCount_people(),
+                    success.getNeed_count_people(), success.getResources(), success.getCentral(), success.getSearch()));
+        }
+        // Еще не сохраненные точки новее записанных в базу
+        pending.forEach((day, s) -> points.put(day, new SuccessPoint(day, s.successful(), s.mood(),
+                s.contPeople(), s.needContPeople(), s.resources(), s.central(), s.search())));
+        return new ArrayList<>(points.values());
+    }
 
-        if(countPeople != 0) {
-            mood = (int) (Math.min((countM + countS) * 3 * 8 / countPeople * 25, 50) +
-                    (statResources +
-                            Math.min(resources.get(TypeResources.FOOD.ordinal()).getProduction() /
-                                    (resources.get(TypeResources.FOOD.ordinal()).getConsumption() * 0.3), 100)) / 4);
+    private Colony findColony(Long idUser){
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
+            throw new RuntimeException("Такого пользователя нет");
         }
-        central = Math.min(countA / Zones.getLength() * 100, 100);
-        search = Math.min((pSearch + mSearch + lSearch + aSearch) * 25, 100);
-        successful = (int) (mood * 0.19 + (100 - Math.max(needCountPeople - countPeople, 0) * 15) * 0.21 + statResources * 0.21 +
-                        central * 0.21 + search * 0.18);
-        return new Successful(successful, mood, countPeople, needCountPeople, statResources, central, search);
+        return optionalColony.get();
     }
 }
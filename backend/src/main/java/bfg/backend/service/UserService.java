@@ -5,14 +5,12 @@ import bfg.backend.dto.responce.allUserInfo.AllUserInfo;
 import bfg.backend.dto.responce.statistics.Statistics;
 import bfg.backend.dto.responce.statistics.ZoneProduction;
 import bfg.backend.mapping.MappingToResponse;
-import bfg.backend.repository.link.*;
-import bfg.backend.repository.module.Module;
-import bfg.backend.repository.module.ModuleRepository;
-import bfg.backend.repository.resource.*;
+import bfg.backend.repository.resource.Resource;
 import bfg.backend.repository.user.*;
-import bfg.backend.service.logic.Component;
-import bfg.backend.service.logic.TypeModule;
-import bfg.backend.service.logic.TypeResources;
+import bfg.backend.service.cache.Colony;
+import bfg.backend.service.cache.ColonyCache;
+import bfg.backend.service.logic.DepletionForecast;
+import bfg.backend.service.logic.ProductionLedger;
 import bfg.backend.service.logic.zones.Zones;
 import org.springframework.stereotype.Service;
 
@@ -24,16 +22,12 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final LinkRepository linkRepository;
-    private final ModuleRepository moduleRepository;
-    private final ResourceRepository resourceRepository;
+    private final ColonyCache colonyCache;
     private final SuccessfulService successfulService;
 
-    public UserService(UserRepository userRepository, LinkRepository linkRepository, ModuleRepository moduleRepository, ResourceRepository resourceRepository, SuccessfulService successfulService) {
+    public UserService(UserRepository userRepository, ColonyCache colonyCache, SuccessfulService successfulService) {
         this.userRepository = userRepository;
-        this.linkRepository = linkRepository;
-        this.moduleRepository = moduleRepository;
-        this.resourceRepository = resourceRepository;
+        this.colonyCache = colonyCache;
         this.successfulService = successfulService;
     }
 
@@ -47,52 +41,62 @@ public class UserService {
             return null;
         }
 
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        List<Link> links = linkRepository.findByIdUser(user.getId());
-        List<Resource> resources = resourceRepository.findByIdUser(user.getId());
-
-        return MappingToResponse.mapToAllUserInfo(user, modules, links, resources);
+        Optional<Colony> optionalColony = colonyCache.find(user.getId());
+        if(optionalColony.isEmpty()){
+            return null;
+        }
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            return MappingToResponse.mapToAllUserInfo(colony.getUser(), colony.getModules(), colony.getLinks(), colony.getResources());
+        }
     }
 
     // TODO потребление электричества за гидролиз кислорода
     public Statistics getStatistics(Long idUser){
-        Optional<User> optionalUser = userRepository.findById(idUser);
-        if(optionalUser.isEmpty()){
+        Optional<Colony> optionalColony = colonyCache.find(idUser);
+        if(optionalColony.isEmpty()){
             throw new RuntimeException("Такого пользователя нет");
         }
-        User user = optionalUser.get();
-
-        List<Module> modules = moduleRepository.findByIdUser(user.getId());
-        List<Resource> resources = resourceRepository.findByIdUser(user.getId());
-        resources.sort(Resource::compareTo);
+        Colony colony = optionalColony.get();
+        synchronized (colony) {
+            return calculate(colony);
+        }
+    }
 
+    private Statistics calculate(Colony colony){
+        List<Resource> resources = colony.getResources();
         List<Long> count = new ArrayList<>(resources.size());
         List<Long> sproduction = new ArrayList<>(resources.size());
         List<Long> sconsumption = new ArrayList<>(resources.size());
-        List<ZoneProduction> zoneProductions = new ArrayList<>(Zones.getLength());
-
         for (Resource resource : resources){
             count.add(resource.getCount());
             sproduction.add(resource.getSum_production());
             sconsumption.add(resource.getSum_consumption());
         }
 
+        // Производство по зонам уже разложено в ledger: каждый модуль учтен один раз, в своей зоне
+        if(colony.getLedger() == null){
+            colony.setLedger(ProductionLedger.recount(colony.getModules()));
+        }
+        ProductionLedger ledger = colony.getLedger();
+        List<ZoneProduction> zoneProductions = new ArrayList<>(Zones.getLength());
         for (int i = 0; i < Zones.getLength(); i++) {
-            List<Long> production = new ArrayList<>(TypeResources.values().length);
-            List<Long> consumption = new ArrayList<>(TypeResources.values().length);
-            for (int j = 0; j < TypeResources.values().length; j++) {
-                production.add(0L);
-                consumption.add(0L);
-            }
-            for(Module module : modules){
-                Component component = TypeModule.values()[module.getModule_type()].createModule(module);
-                component.getProduction(i, modules, production);
-                component.getConsumption(i, modules, consumption);
-            }
-            zoneProductions.add(new ZoneProduction(i, production, consumption));
+            zoneProductions.add(new ZoneProduction(i, toList(ledger.getProduction(i)), toList(ledger.getConsumption(i))));
         }
 
-        return new Statistics(user.getCurrent_day(), successfulService.getSuccessful(idUser).successful(), count, sproduction, sconsumption, zoneProductions);
+        User user = colony.getUser();
+        List<Long> depletionDays = DepletionForecast.toDays(
+                DepletionForecast.of(resources, user.getDays_before_delivery()), user.getCurrent_day());
+        return new Statistics(user.getCurrent_day(), successfulService.getSuccessful(colony).successful(),
+                count, sproduction, sconsumption, zoneProductions, depletionDays);
+    }
+
+    private static List<Long> toList(long[] values){
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
     }
 
     public Long create(UserIn userIn) {
@@ -0,0 +1,169 @@
+package bfg.backend.service.cache;
+
+import bfg.backend.dto.responce.successful.Successful;
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.event.EventType;
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.user.User;
+import bfg.backend.service.logic.ColonyLinks;
+import bfg.backend.service.logic.ColonyModules;
+import bfg.backend.service.logic.ProductionLedger;
+import bfg.backend.service.logic.TypeResources;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Состояние колонии в памяти: пользователь, модули, связи и ресурсы.
+ * Изменения выполняются под блокировкой самого объекта (synchronized (colony)).
+ * Пользователь, ресурсы, история успешности и журнал событий сохраняются в базу отложенно, модули и связи - сразу при изменении.
+ */
+public class Colony {
+
+    private final User user;
+    private final ColonyModules modules;
+    private final ColonyLinks links;
+    // Отсортированы по типу ресурса
+    private final List<Resource> resources;
+    private ProductionLedger ledger;
+    // Текущая успешность и еще не сохраненные точки ее истории по дням
+    private Successful success;
+    private final Map<Integer, Successful> history = new LinkedHashMap<>();
+    // Еще не сохраненные события журнала
+    private final List<Event> events = new ArrayList<>();
+
+    private boolean dirty;
+    // Колония убрана из кэша без сохранения
+    private boolean discarded;
+    private final Consumer<Colony> onDirty;
+
+    Colony(User user, List<Module> modules, List<Link> links, List<Resource> resources, Consumer<Colony> onDirty) {
+        this.user = user;
+        this.modules = new ColonyModules(modules);
+        // Порядок по id (порядок постройки): от него зависит выбор космодрома у административных модулей
+        this.modules.sort(Module::compareTo);
+        this.links = new ColonyLinks(links);
+        // ColonySnapshotRepository загружает ресурсы уже по возрастанию типа
+        this.resources = resources;
+        this.onDirty = onDirty;
+    }
+
+    public Long getId() {
+        return user.getId();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public ColonyModules getModules() {
+        return modules;
+    }
+
+    public ColonyLinks getLinks() {
+        return links;
+    }
+
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    public Optional<Resource> findResource(TypeResources type) {
+        for (Resource resource : resources) {
+            if (resource.getPrimaryKey().getResource_type() == type.ordinal()) {
+                return Optional.of(resource);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public ProductionLedger getLedger() {
+        return ledger;
+    }
+
+    public void setLedger(ProductionLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public Successful getSuccess() {
+        return success;
+    }
+
+    /**
+     * Новое значение успешности. Если оно изменилось, в историю добавляется точка на день day.
+     */
+    public void setSuccess(int day, Successful success) {
+        if (success.equals(this.success)) return;
+        this.success = success;
+        history.put(day, success);
+        markDirty();
+    }
+
+    /**
+     * Значение, посчитанное при загрузке колонии: точку истории не добавляет
+     */
+    public void initSuccess(Successful success) {
+        this.success = success;
+    }
+
+    public Map<Integer, Successful> getHistory() {
+        return history;
+    }
+
+    /**
+     * Добавляет событие в журнал. Прокрутка дней сразу после такой же прокрутки объединяется с ней.
+     */
+    public void addEvent(Event event) {
+        if (event.getEventType() == EventType.DAYS_ADVANCED && !events.isEmpty()) {
+            Event last = events.getLast();
+            if (last.getEventType() == EventType.DAYS_ADVANCED && last.getDay() + last.getDays() == event.getDay()) {
+                last.extend(event.getDays());
+                return;
+            }
+        }
+        events.add(event);
+        markDirty();
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * Пользователь или ресурсы изменены и должны быть сохранены
+     */
+    public void markDirty() {
+        if (!dirty && !discarded) {
+            dirty = true;
+            onDirty.accept(this);
+        }
+    }
+
+    /**
+     * Колония убрана из кэша (удалена или пересоздана), менять ее больше нельзя
+     */
+    public boolean isDiscarded() {
+        return discarded;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void clean() {
+        dirty = false;
+    }
+
+    void discard() {
+        dirty = false;
+        discarded = true;
+        history.clear();
+        events.clear();
+    }
+}
@@ -0,0 +1,325 @@
+package bfg.backend.service.cache;
+
+import bfg.backend.dto.responce.successful.Successful;
+import bfg.backend.repository.colony.ColonySnapshot;
+import bfg.backend.repository.colony.ColonySnapshotRepository;
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.event.EventRepository;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.resource.ResourceStore;
+import bfg.backend.repository.success.Success;
+import bfg.backend.repository.success.SuccessRepository;
+import bfg.backend.repository.user.User;
+import bfg.backend.repository.user.UserRepository;
+import bfg.backend.service.logic.Snapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Кэш колоний по id пользователя с вытеснением давно не использованных (LRU).
+ * Колония загружается из базы одним запросом (ColonySnapshotRepository).
+ * Пользователь, ресурсы, новые точки истории успешности и события журнала измененных колоний сохраняются в базу
+ * пачкой раз в moon.cache.flush-delay мс в одной транзакции, ресурсы всех колоний - одним запросом на каждую
+ * 1000 колоний или строк.
+ * Вытесненная колония с несохраненными изменениями остается доступной до ближайшего сохранения.
+ */
+@Service
+public class ColonyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ColonyCache.class);
+
+    private final ColonySnapshotRepository colonySnapshotRepository;
+    private final UserRepository userRepository;
+    private final ResourceStore resourceStore;
+    private final SuccessRepository successRepository;
+    private final EventRepository eventRepository;
+    // Все записи одного сохранения - в одной транзакции
+    private final TransactionOperations transaction;
+
+    private final int maxSize;
+    private final LinkedHashMap<Long, Colony> colonies;
+    // Колонии с несохраненными изменениями, в том числе уже вытесненные
+    private final Map<Long, Colony> dirty = new ConcurrentHashMap<>();
+    // Пользователи, чьи колонии сейчас переписываются в базе (rewrite), и число начатых перезаписей;
+    // оба - под блокировкой colonies
+    private final Set<Long> rewriting = new HashSet<>();
+    private long rewrites;
+
+    public ColonyCache(ColonySnapshotRepository colonySnapshotRepository,
+                       UserRepository userRepository, ResourceStore resourceStore,
+                       SuccessRepository successRepository, EventRepository eventRepository,
+                       TransactionOperations transaction, @Value("${moon.cache.max-size:1000}") int maxSize) {
+        this.colonySnapshotRepository = colonySnapshotRepository;
+        this.userRepository = userRepository;
+        this.resourceStore = resourceStore;
+        this.successRepository = successRepository;
+        this.eventRepository = eventRepository;
+        this.transaction = transaction;
+        this.maxSize = maxSize;
+        this.colonies = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Colony> eldest) {
+                return size() > ColonyCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<Colony> find(Long idUser) {
+        while (true) {
+            long epoch;
+            synchronized (colonies) {
+                awaitRewrite(List.of(idUser));
+                Colony colony = cached(idUser);
+                if (colony != null) return Optional.of(colony);
+                epoch = rewrites;
+            }
+
+            Optional<ColonySnapshot> snapshot = colonySnapshotRepository.findByIdUser(idUser);
+            if (snapshot.isEmpty()) {
+                return Optional.empty();
+            }
+            Colony loaded = create(snapshot.get());
+
+            synchronized (colonies) {
+                // Колонию мог загрузить параллельный запрос
+                Colony colony = cached(idUser);
+                if (colony != null) return Optional.of(colony);
+                // Пока колония загружалась, ее переписали в базе (rewrite): загруженная устарела
+                if (rewrites != epoch) continue;
+                journal(loaded, snapshot.get());
+                colonies.put(idUser, loaded);
+                return Optional.of(loaded);
+            }
+        }
+    }
+
+    /**
+     * Колонии пользователей ids в том же порядке (несуществующие пропускаются).
+     * Отсутствующие в кэше загружаются пачкой одним запросом.
+     */
+    public List<Colony> findAll(List<Long> ids) {
+        Map<Long, Colony> found = new HashMap<>();
+        List<Long> missing = ids;
+        while (!missing.isEmpty()) {
+            List<Long> load = new ArrayList<>();
+            long epoch;
+            synchronized (colonies) {
+                awaitRewrite(missing);
+                for (Long idUser : missing) {
+                    Colony colony = cached(idUser);
+                    if (colony == null) {
+                        load.add(idUser);
+                    } else {
+                        found.put(idUser, colony);
+                    }
+                }
+                epoch = rewrites;
+            }
+            if (load.isEmpty()) break;
+
+            List<ColonySnapshot> snapshots = colonySnapshotRepository.findByIdUsers(load);
+            synchronized (colonies) {
+                // Пока колонии загружались, какую-то из них переписали в базе: загрузка повторяется
+                if (rewrites != epoch) {
+                    missing = load;
+                    continue;
+                }
+                for (ColonySnapshot snapshot : snapshots) {
+                    Long idUser = snapshot.user().getId();
+                    // Колонию мог загрузить параллельный запрос
+                    Colony colony = cached(idUser);
+                    if (colony == null) {
+                        colony = create(snapshot);
+                        journal(colony, snapshot);
+                        colonies.put(idUser, colony);
+                    }
+                    found.put(idUser, colony);
+                }
+            }
+            break;
+        }
+
+        List<Colony> result = new ArrayList<>(found.size());
+        for (Long idUser : ids) {
+            Colony colony = found.get(idUser);
+            if (colony != null) result.add(colony);
+        }
+        return result;
+    }
+
+    /**
+     * Меняет колонию в базе напрямую (создание и удаление колонии) в одной транзакции, после чего колония
+     * убирается из кэша без сохранения. Пока идет запись, колония пользователя не загружается и не сохраняется,
+     * а загруженная параллельно выбрасывается, поэтому старое состояние не вернется в кэш и в базу.
+     * @param action получает колонию из кэша, если она там есть: в ней могут быть несохраненные изменения.
+     *               Если action бросает исключение, запись откатывается, колония остается в кэше
+     */
+    public synchronized void rewrite(Long idUser, Consumer<Optional<Colony>> action) {
+        Colony current;
+        synchronized (colonies) {
+            rewriting.add(idUser);
+            rewrites++;
+            current = colonies.get(idUser);
+            if (current == null) current = dirty.get(idUser);
+        }
+        Optional<Colony> cached = Optional.ofNullable(current);
+        try {
+            transaction.executeWithoutResult(status -> action.accept(cached));
+            remove(idUser);
+        } finally {
+            synchronized (colonies) {
+                rewriting.remove(idUser);
+                colonies.notifyAll();
+            }
+        }
+    }
+
+    // Вызывается под блокировкой colonies
+    private void awaitRewrite(List<Long> ids) {
+        while (!rewriting.isEmpty() && ids.stream().anyMatch(rewriting::contains)) {
+            try {
+                colonies.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Ожидание записи колонии прервано");
+            }
+        }
+    }
+
+    // Вызывается под блокировкой colonies
+    private Colony cached(Long idUser) {
+        Colony colony = colonies.get(idUser);
+        if (colony == null) {
+            colony = dirty.get(idUser);
+            if (colony != null) colonies.put(idUser, colony);
+        }
+        return colony;
+    }
+
+    private Colony create(ColonySnapshot snapshot) {
+        return new Colony(snapshot.user(), snapshot.modules(), snapshot.links(), snapshot.resources(),
+                colony -> dirty.put(colony.getId(), colony));
+    }
+
+    /**
+     * Первый снимок журнала: у новой колонии или у созданной до журнала (история - с текущего дня).
+     * Только для колонии, попавшей в кэш: событие помечает колонию измененной. Вызывается под блокировкой colonies
+     */
+    private void journal(Colony colony, ColonySnapshot snapshot) {
+        if (snapshot.journaled()) return;
+        synchronized (colony) {
+            colony.addEvent(Event.snapshot(colony.getId(), colony.getUser().getCurrent_day(),
+                    Snapshot.pack(colony.getUser(), colony.getModules(), colony.getLinks(), colony.getResources())));
+        }
+    }
+
+    /**
+     * Убирает колонию из кэша, не сохраняя ее изменения.
+     * Для изменения колонии в базе напрямую нужен rewrite: после remove ее сразу может загрузить параллельный запрос.
+     */
+    public synchronized void remove(Long idUser) {
+        Colony colony;
+        Colony pending;
+        synchronized (colonies) {
+            colony = colonies.remove(idUser);
+            pending = dirty.remove(idUser);
+        }
+        for (Colony c : new Colony[]{colony, pending}) {
+            if (c == null) continue;
+            synchronized (c) {
+                c.discard();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${moon.cache.flush-delay:5000}")
+    public synchronized void flush() {
+        List<Colony> flushed = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        List<Resource> resources = new ArrayList<>();
+        List<Success> history = new ArrayList<>();
+        Map<Colony, Map<Integer, Successful>> points = new HashMap<>();
+        List<Event> events = new ArrayList<>();
+        Map<Colony, List<Event>> logs = new HashMap<>();
+        for (Colony colony : dirty.values()) {
+            synchronized (colony) {
+                if (!colony.isDirty()) continue;
+                // Копии, чтобы запросы могли менять колонию, пока идет сохранение
+                User user = colony.getUser();
+                users.add(new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(),
+                        user.getCurrent_day(), user.getDays_before_delivery(), user.getLive()));
+                for (Resource resource : colony.getResources()) {
+                    resources.add(new Resource(resource.getPrimaryKey(), resource.getCount(), resource.getProduction(),
+                            resource.getConsumption(), resource.getSum_production(), resource.getSum_consumption()));
+                }
+                for (Map.Entry<Integer, Successful> point : colony.getHistory().entrySet()) {
+                    history.add(toEntity(colony.getId(), point.getKey(), point.getValue()));
+                }
+                points.put(colony, new LinkedHashMap<>(colony.getHistory()));
+                colony.getHistory().clear();
+                events.addAll(colony.getEvents());
+                logs.put(colony, new ArrayList<>(colony.getEvents()));
+                colony.getEvents().clear();
+                colony.clean();
+                flushed.add(colony);
+            }
+        }
+        if (flushed.isEmpty()) return;
+
+        long start = System.nanoTime();
+        try {
+            // При ошибке откатывается все сохранение, колонии сохраняются заново целиком
+            transaction.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                resourceStore.updateAll(resources);
+                successRepository.saveAll(history);
+                eventRepository.saveAll(events);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to save {} colonies, will retry", flushed.size(), e);
+            for (Colony colony : flushed) {
+                synchronized (colony) {
+                    // Более новые точки за тот же день не затираются
+                    points.get(colony).forEach(colony.getHistory()::putIfAbsent);
+                    // События, добавленные во время сохранения, идут после несохраненных
+                    colony.getEvents().addAll(0, logs.get(colony));
+                    colony.markDirty();
+                }
+            }
+            return;
+        }
+        for (Colony colony : flushed) {
+            synchronized (colony) {
+                if (!colony.isDirty()) dirty.remove(colony.getId(), colony);
+            }
+        }
+        log.debug("Saved {} colonies ({} resources, {} success points) in {} ms", flushed.size(),
+                resources.size(), history.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static Success toEntity(Long idUser, int day, Successful s) {
+        return new Success(new Success.PrimaryKey(idUser, day), s.successful(), s.mood(), s.contPeople(),
+                s.needContPeople(), s.resources(), s.central(), s.search());
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+}
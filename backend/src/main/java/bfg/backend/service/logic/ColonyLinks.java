@@ -0,0 +1,118 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Связи одной колонии вместе со связностью зон по ним (ZoneConnectivity).
+ * Связность обновляется при добавлении и удалении связи, при массовых изменениях строится заново.
+ * Список меняется только под блокировкой колонии; getConnectivity можно вызывать из нескольких потоков.
+ */
+public class ColonyLinks extends ArrayList<Link> {
+
+    private volatile ZoneConnectivity connectivity;
+
+    public ColonyLinks() {
+    }
+
+    public ColonyLinks(Collection<? extends Link> links) {
+        super(links);
+    }
+
+    public ZoneConnectivity getConnectivity() {
+        ZoneConnectivity current = connectivity;
+        if (current == null) {
+            // Публикуется уже построенная; при гонке лишняя копия просто отбрасывается
+            current = new ZoneConnectivity(this);
+            connectivity = current;
+        }
+        return current;
+    }
+
+    @Override
+    public boolean add(Link link) {
+        if (connectivity != null) connectivity.add(link);
+        return super.add(link);
+    }
+
+    @Override
+    public void add(int index, Link link) {
+        if (connectivity != null) connectivity.add(link);
+        super.add(index, link);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Link> c) {
+        connectivity = null;
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Link> c) {
+        connectivity = null;
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public Link set(int index, Link link) {
+        if (connectivity != null) {
+            connectivity.remove(get(index));
+            connectivity.add(link);
+        }
+        return super.set(index, link);
+    }
+
+    @Override
+    public Link remove(int index) {
+        if (connectivity != null) connectivity.remove(get(index));
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        connectivity = null;
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        connectivity = null;
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Link> filter) {
+        connectivity = null;
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Link> operator) {
+        connectivity = null;
+        super.replaceAll(operator);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        connectivity = null;
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public void clear() {
+        connectivity = null;
+        super.clear();
+    }
+}
@@ -0,0 +1,224 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Модули одной колонии вместе с пространственным индексом по ним.
+ * Индекс и составляющие успешности строятся при первом обращении и сбрасываются при изменении
+ * состава списка (сортировка состав не меняет), вместе с освещенностью измененной зоны.
+ * Компонент (объект класса модуля из modules) создается для модуля один раз и живет, пока модуль в списке.
+ * Рациональность модулей хранится и при изменении состава сбрасывается по графу зависимостей.
+ * Индекс людей (PopulationIndex) не перестраивается, а обновляется при добавлении и удалении модуля.
+ * Координаты модулей внутри списка менять нельзя.
+ */
+public class ColonyModules extends ArrayList<Module> {
+
+    // Компоненты модулей по id: создаются один раз, пока модуль есть в списке
+    private final Map<Long, Component> components = new ConcurrentHashMap<>();
+    // Рациональность модулей по id; при изменении состава сбрасывается только у зависящих от изменения (DependencyGraph)
+    private final Map<Long, Integer> rationality = new HashMap<>();
+    private ModuleGrid grid;
+    // Поддерживается при добавлении и удалении модулей, перестраивается только при массовых изменениях
+    private PopulationIndex population;
+    private SuccessScore score;
+    // Освещенность по зонам сбрасывается только для зоны, в которой изменился состав модулей
+    private final Map<Integer, Illumination> illumination = new ConcurrentHashMap<>();
+
+    public ColonyModules() {
+    }
+
+    public ColonyModules(Collection<? extends Module> modules) {
+        super(modules);
+    }
+
+    /**
+     * Компонент модуля списка. Для модуля без id или не совпадающего с модулем списка создается новый.
+     */
+    public Component getComponent(Module module) {
+        if (module.getId() == null) {
+            return TypeModule.of(module.getModule_type()).createModule(module);
+        }
+        Component component = components.computeIfAbsent(module.getId(),
+                id -> TypeModule.of(module.getModule_type()).createModule(module));
+        Module cached = (Module) component;
+        if (!Objects.equals(cached.getModule_type(), module.getModule_type()) ||
+                !Objects.equals(cached.getId_zone(), module.getId_zone()) ||
+                !Objects.equals(cached.getX(), module.getX()) || !Objects.equals(cached.getY(), module.getY())) {
+            return TypeModule.of(module.getModule_type()).createModule(module);
+        }
+        return component;
+    }
+
+    /**
+     * Рациональность модуля списка. Для модулей, зависящих от связей или ресурсов, считается каждый раз.
+     */
+    public Integer getRationality(Module module, List<Link> links, List<Resource> resources) {
+        Component component = getComponent(module);
+        if (module.getId() == null || !DependencyGraph.isCacheable(TypeModule.of(module.getModule_type()))) {
+            return component.getRationality(this, links, resources);
+        }
+        if (rationality.containsKey(module.getId())) {
+            return rationality.get(module.getId());
+        }
+        Integer value = component.getRationality(this, links, resources);
+        rationality.put(module.getId(), value);
+        return value;
+    }
+
+    public ModuleGrid getGrid() {
+        if (grid == null) {
+            grid = new ModuleGrid(this);
+        }
+        return grid;
+    }
+
+    public PopulationIndex getPopulation() {
+        if (population == null) {
+            population = new PopulationIndex(this);
+        }
+        return population;
+    }
+
+    public SuccessScore getScore() {
+        if (score == null) {
+            score = new SuccessScore(getGrid(), getPopulation());
+        }
+        return score;
+    }
+
+    public Illumination getIllumination(int zone) {
+        return illumination.computeIfAbsent(zone, z -> new Illumination(z, getGrid().inZone(z)));
+    }
+
+    private void invalidate() {
+        grid = null;
+        population = null;
+        score = null;
+        illumination.clear();
+        components.clear();
+        rationality.clear();
+    }
+
+    private void invalidate(Module module) {
+        grid = null;
+        score = null;
+        if (module != null && module.getId() != null) {
+            components.remove(module.getId());
+            rationality.remove(module.getId());
+        }
+        if (module == null) {
+            rationality.clear();
+        } else {
+            rationality.keySet().removeIf(id -> {
+                Component component = components.get(id);
+                return component == null ||
+                        DependencyGraph.affects(DependencyGraph.Facet.RATIONALITY, module, (Module) component);
+            });
+        }
+        if (module != null && module.getId_zone() != null) {
+            illumination.remove(module.getId_zone());
+        } else {
+            illumination.clear();
+        }
+    }
+
+    @Override
+    public boolean add(Module module) {
+        invalidate(module);
+        if (population != null) population.add(module);
+        return super.add(module);
+    }
+
+    @Override
+    public void add(int index, Module module) {
+        invalidate(module);
+        if (population != null) population.add(module);
+        super.add(index, module);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Module> c) {
+        invalidate();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Module> c) {
+        invalidate();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public Module set(int index, Module module) {
+        invalidate(get(index));
+        invalidate(module);
+        if (population != null) {
+            population.remove(get(index));
+            population.add(module);
+        }
+        return super.set(index, module);
+    }
+
+    @Override
+    public Module remove(int index) {
+        invalidate(get(index));
+        if (population != null) population.remove(get(index));
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        invalidate();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        invalidate();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Module> filter) {
+        invalidate();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Module> operator) {
+        invalidate();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        invalidate();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public void clear() {
+        invalidate();
+        super.clear();
+    }
+}
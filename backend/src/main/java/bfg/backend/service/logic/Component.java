@@ -8,6 +8,17 @@ import java.util.List;
 
 public interface Component {
 
+    /**
+     * Компонент модуля из списка. Для ColonyModules берется созданный при загрузке колонии,
+     * иначе создается заново.
+     */
+    static Component of(List<Module> modules, Module module) {
+        if (modules instanceof ColonyModules colonyModules) {
+            return colonyModules.getComponent(module);
+        }
+        return TypeModule.of(module.getModule_type()).createModule(module);
+    }
+
     Integer getRelief();
 
     Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources);
@@ -17,22 +28,7 @@ public interface Component {
     void getConsumption(int idZone, List<Module> modules, List<Long> consumption);
 
     default boolean enoughPeople(List<Module> modules, long id){
-        modules.sort(Module::compareTo);
-        int countPeople = 0;
-        int needPeople = 0;
-        boolean cur = false;
-        for(Module module : modules){
-            if(module.getModule_type() == TypeModule.LIVE_MODULE_Y.ordinal() ||
-                module.getModule_type() == TypeModule.LIVE_MODULE_X.ordinal()){
-                countPeople += 8;
-                continue;
-            }
-            if(!cur){
-                needPeople += TypeModule.values()[module.getModule_type()].getPeople();
-            }
-            if(module.getId() == id) cur = true;
-        }
-        return countPeople >= needPeople;
+        return PopulationIndex.of(modules).enoughPeople(id);
     }
 
     boolean cross(int x, int y, int w, int h);
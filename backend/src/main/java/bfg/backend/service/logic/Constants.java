@@ -4,8 +4,13 @@ public class Constants {
     public final static int SIZE_CELL = 5;
 
     public final static int DAYS_DELIVERY = 30;
+    public final static int MAX_DAYS_BATCH = 10000;
+    // Снимок состояния колонии в журнал событий каждые SNAPSHOT_DAYS дней
+    public final static int SNAPSHOT_DAYS = 100;
     public final static int MASS = 10000000;
     public final static int[] ILLUMINATION = {40, 40, 95, 95, 0, 0};
+    // Высота солнца над горизонтом у южного полюса, градусы
+    public final static double SUN_ELEVATION = 1.5;
 
     public final static int MAX_COUNT_REPAIRED = 12;
     public final static double CON_MATERIAL_BY_REPAIRED = 0.5;
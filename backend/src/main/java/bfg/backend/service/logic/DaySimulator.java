@@ -0,0 +1,43 @@
+package bfg.backend.service.logic;
+
+import static bfg.backend.service.logic.Constants.*;
+
+/**
+ * Расчет игрового дня над массивами ресурсов, индексированными по TypeResources.ordinal()
+ */
+public class DaySimulator {
+
+    /**
+     * Недостаток кислорода покрывается электролизом воды
+     */
+    public static void electrolysis(long[] production, long[] consumption) {
+        long d = consumption[TypeResources.O2.ordinal()] - production[TypeResources.O2.ordinal()];
+        if(d > 0){
+            consumption[TypeResources.WT.ordinal()] = d * WT_FOR_KG_O2 / 1000 + consumption[TypeResources.WT.ordinal()];
+            consumption[TypeResources.H2O.ordinal()] = (long) (d * H2O_FOR_KG_O2) + consumption[TypeResources.H2O.ordinal()];
+            production[TypeResources.O2.ordinal()] = d + production[TypeResources.O2.ordinal()];
+        }
+    }
+
+    /**
+     * Применяет один день к запасам ресурсов
+     * @param diff сюда записывается изменение каждого ресурса за день
+     * @return жива ли колония после этого дня
+     */
+    public static boolean nextDay(long[] count, long[] production, long[] consumption,
+                                  long[] sumProduction, long[] sumConsumption, boolean delivery, long[] diff) {
+        boolean live = true;
+        for (int i = 0; i < count.length; i++) {
+            long d = production[i] - consumption[i];
+            if (delivery && d < 0 && i != TypeResources.WT.ordinal()) {
+                d -= d * DAYS_DELIVERY + (count[i] + d * 5);
+            }
+            diff[i] = d;
+            count[i] += d;
+            sumProduction[i] += production[i];
+            sumConsumption[i] += consumption[i];
+            if(count[i] < 0) live = false;
+        }
+        return live;
+    }
+}
@@ -0,0 +1,183 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static bfg.backend.service.logic.TypeModule.*;
+
+/**
+ * Зависимости результата модуля от других модулей колонии, отдельно для производства (OUTPUT)
+ * и рациональности (RATIONALITY). Ребро задается для типа модуля: от каких типов и в какой области он зависит.
+ * При добавлении или удалении модуля по графу находятся модули, результат которых мог измениться,
+ * остальные не пересчитываются. Графы должны соответствовать getProduction/getConsumption и getRationality модулей.
+ */
+public class DependencyGraph {
+
+    public enum Facet { OUTPUT, RATIONALITY }
+
+    private enum Scope {
+        // модули источников в той же зоне
+        ZONE,
+        // модули источников во всей колонии
+        COLONY,
+        // люди (enoughPeople): жилые модули и модули, которым нужны люди, построенные раньше
+        PEOPLE,
+        // результат (производство или потребление) модулей источников во всей колонии
+        RESULT
+    }
+
+    private record Edge(Scope scope, Set<TypeModule> sources) {}
+
+    private static final Set<TypeModule> ALL = EnumSet.allOf(TypeModule.class);
+
+    private static final Map<TypeModule, List<Edge>> OUTPUT = new EnumMap<>(TypeModule.class);
+    private static final Map<TypeModule, List<Edge>> RATIONALITY = new EnumMap<>(TypeModule.class);
+    // Рациональность зависит от связей или ресурсов колонии, поэтому считается каждый раз
+    private static final Set<TypeModule> EXTERNAL = EnumSet.of(ADMINISTRATIVE_MODULE, LIVE_ADMINISTRATIVE_MODULE,
+            PLANTATION, MANUFACTURING_ENTERPRISE, MANUFACTURING_ENTERPRISE_FUEL,
+            WAREHOUSE_FOOD, WAREHOUSE_GASES, WAREHOUSE_FUEL, WAREHOUSE_MATERIAL);
+
+    static {
+        // Ремонтные модули делят модули зоны в радиусе ремонта
+        output(REPAIR_MODULE, zone(ALL));
+        // Станция: люди, администрация и затенение модулями зоны
+        output(SOLAR_POWER_PLANT, people(), zone(ALL));
+        output(LANDFILL_BIO, colony(LIVE_MODULE_X, LIVE_MODULE_Y, PLANTATION));
+        // Свалка перерабатывает материал, который расходуют ремонтные модули
+        output(LANDFILL, new Edge(Scope.RESULT, EnumSet.of(REPAIR_MODULE)));
+
+        for (TypeModule type : TypeModule.values()) {
+            // Пересечения, опасная зона космодрома, соседство с жилыми и администрация - в зоне модуля
+            rationality(type, zone(ALL));
+        }
+        for (TypeModule type : EnumSet.of(SPORT_MODULE, MEDICAL_MODULE, PLANTATION, SOLAR_POWER_PLANT, REPAIR_MODULE,
+                ASTRONOMICAL_SITE, MINE_BASE, MANUFACTURING_ENTERPRISE, MANUFACTURING_ENTERPRISE_FUEL,
+                RESEARCH_MODULE_PLANTATION, RESEARCH_MODULE_MINE, RESEARCH_MODULE_TELESCOPE, RESEARCH_MODULE_TERRITORY,
+                COMMUNICATION_TOWER, LANDFILL, LANDFILL_BIO,
+                WAREHOUSE_FOOD, WAREHOUSE_GASES, WAREHOUSE_FUEL, WAREHOUSE_MATERIAL)) {
+            rationality(type, people());
+        }
+        // Зона последнего космодрома и ее связность с зоной модуля
+        rationality(ADMINISTRATIVE_MODULE, colony(COSMODROME));
+        rationality(LIVE_ADMINISTRATIVE_MODULE, colony(COSMODROME));
+        rationality(RESEARCH_MODULE_PLANTATION, colony(RESEARCH_MODULE_PLANTATION, PLANTATION));
+        rationality(RESEARCH_MODULE_MINE, colony(RESEARCH_MODULE_MINE, MINE_BASE));
+        rationality(RESEARCH_MODULE_TELESCOPE, colony(RESEARCH_MODULE_TELESCOPE, ASTRONOMICAL_SITE));
+        rationality(RESEARCH_MODULE_TERRITORY, colony(RESEARCH_MODULE_TERRITORY));
+        rationality(COSMODROME, colony(COSMODROME, WAREHOUSE_FOOD, WAREHOUSE_FUEL, WAREHOUSE_GASES, WAREHOUSE_MATERIAL));
+        rationality(COMMUNICATION_TOWER, colony(COMMUNICATION_TOWER));
+        rationality(LANDFILL, colony(LANDFILL, REPAIR_MODULE));
+        rationality(LANDFILL_BIO, colony(LANDFILL_BIO, LIVE_MODULE_X, LIVE_MODULE_Y));
+        for (TypeModule type : EnumSet.of(WAREHOUSE_FOOD, WAREHOUSE_GASES, WAREHOUSE_FUEL, WAREHOUSE_MATERIAL)) {
+            rationality(type, colony(type));
+        }
+    }
+
+    /**
+     * Зависит ли результат модуля типа type от других модулей
+     */
+    public static boolean isDependent(Facet facet, TypeModule type) {
+        return !graph(facet).getOrDefault(type, List.of()).isEmpty();
+    }
+
+    /**
+     * Можно ли хранить рациональность модуля типа type до изменения состава модулей
+     */
+    public static boolean isCacheable(TypeModule type) {
+        return !EXTERNAL.contains(type);
+    }
+
+    /**
+     * Меняется ли результат target непосредственно при добавлении или удалении changed
+     */
+    public static boolean affects(Facet facet, Module changed, Module target) {
+        if (Objects.equals(changed.getId(), target.getId())) return false;
+        for (Edge edge : graph(facet).getOrDefault(TypeModule.of(target.getModule_type()), List.of())) {
+            if (matches(edge, changed, target)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Модули из candidates, результат которых может измениться при добавлении или удалении changed,
+     * вместе с модулями, зависящими от результата уже найденных
+     */
+    public static List<Module> affected(Facet facet, Module changed, Collection<Module> candidates) {
+        List<Module> result = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+        found.add(changed.getId());
+        for (Module module : candidates) {
+            if (affects(facet, changed, module) && found.add(module.getId())) result.add(module);
+        }
+        // Результат изменившегося модуля и найденных тоже изменился
+        List<Module> queue = new ArrayList<>(result);
+        queue.add(changed);
+        for (int i = 0; i < queue.size(); i++) {
+            TypeModule source = TypeModule.of(queue.get(i).getModule_type());
+            for (Module module : candidates) {
+                if (found.contains(module.getId()) || !dependsOnResult(facet, module, source)) continue;
+                found.add(module.getId());
+                result.add(module);
+                queue.add(module);
+            }
+        }
+        return result;
+    }
+
+    private static boolean dependsOnResult(Facet facet, Module target, TypeModule source) {
+        for (Edge edge : graph(facet).getOrDefault(TypeModule.of(target.getModule_type()), List.of())) {
+            if (edge.scope() == Scope.RESULT && edge.sources().contains(source)) return true;
+        }
+        return false;
+    }
+
+    private static boolean matches(Edge edge, Module changed, Module target) {
+        TypeModule type = TypeModule.of(changed.getModule_type());
+        return switch (edge.scope()) {
+            case ZONE -> edge.sources().contains(type) && Objects.equals(changed.getId_zone(), target.getId_zone());
+            case COLONY -> edge.sources().contains(type);
+            // Модули, построенные позже, не меняют, хватает ли людей target
+            case PEOPLE -> type == LIVE_MODULE_X || type == LIVE_MODULE_Y ||
+                    (type.getPeople() > 0 && (changed.getId() == null || target.getId() == null ||
+                            changed.getId() < target.getId()));
+            case RESULT -> false;
+        };
+    }
+
+    private static Map<TypeModule, List<Edge>> graph(Facet facet) {
+        return facet == Facet.OUTPUT ? OUTPUT : RATIONALITY;
+    }
+
+    private static void output(TypeModule type, Edge... edges) {
+        OUTPUT.computeIfAbsent(type, k -> new ArrayList<>()).addAll(List.of(edges));
+    }
+
+    private static void rationality(TypeModule type, Edge... edges) {
+        RATIONALITY.computeIfAbsent(type, k -> new ArrayList<>()).addAll(List.of(edges));
+    }
+
+    private static Edge zone(Set<TypeModule> sources) {
+        return new Edge(Scope.ZONE, sources);
+    }
+
+    private static Edge colony(Set<TypeModule> sources) {
+        return new Edge(Scope.COLONY, sources);
+    }
+
+    private static Edge colony(TypeModule first, TypeModule... rest) {
+        return colony(EnumSet.of(first, rest));
+    }
+
+    private static Edge people() {
+        return new Edge(Scope.PEOPLE, Set.of());
+    }
+}
@@ -0,0 +1,69 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Через сколько дней кончится каждый ресурс при неизменных производстве и потреблении,
+ * без прокрутки по дням (правила DaySimulator):
+ * электролиз меняет производство и потребление только в первый день, дальше недостатка кислорода нет;
+ * в день доставки запас ресурса с отрицательным приростом (кроме энергии) становится -d * (DAYS_DELIVERY + 4),
+ * чего хватает до следующей доставки. Поэтому ресурс кончается, только если его запаса не хватает до первой доставки.
+ */
+public class DepletionForecast {
+
+    // Ресурс не кончится
+    public static final long NEVER = -1L;
+
+    /**
+     * @param daysBeforeDelivery как у пользователя: доставка в день, когда он равен 1
+     * @return для каждого ресурса номер дня, считая от текущего (1 - завтра), в конце которого запас станет
+     * отрицательным, или NEVER
+     */
+    public static long[] of(long[] count, long[] production, long[] consumption, int daysBeforeDelivery) {
+        int n = count.length;
+        long[] p = production.clone();
+        long[] c = consumption.clone();
+        DaySimulator.electrolysis(p, c);
+
+        long[] days = new long[n];
+        for (int i = 0; i < n; i++) {
+            long d = p[i] - c[i];
+            if (d >= 0) {
+                days[i] = count[i] + d < 0 ? 1 : NEVER;
+                continue;
+            }
+            // Первый день k, для которого count + k * d < 0
+            long k = Math.max(Math.floorDiv(count[i], -d) + 1, 1);
+            boolean delivered = i != TypeResources.WT.ordinal() && daysBeforeDelivery >= 1;
+            days[i] = delivered && k >= daysBeforeDelivery ? NEVER : k;
+        }
+        return days;
+    }
+
+    public static long[] of(List<Resource> resources, int daysBeforeDelivery) {
+        int n = resources.size();
+        long[] count = new long[n];
+        long[] production = new long[n];
+        long[] consumption = new long[n];
+        for (int i = 0; i < n; i++) {
+            count[i] = resources.get(i).getCount();
+            production[i] = resources.get(i).getProduction();
+            consumption[i] = resources.get(i).getConsumption();
+        }
+        return of(count, production, consumption, daysBeforeDelivery);
+    }
+
+    /**
+     * Дни исчерпания, отсчитанные от дня day; null - ресурс не кончится
+     */
+    public static List<Long> toDays(long[] forecast, int day) {
+        List<Long> days = new ArrayList<>(forecast.length);
+        for (long k : forecast) {
+            days.add(k == NEVER ? null : day + k);
+        }
+        return days;
+    }
+}
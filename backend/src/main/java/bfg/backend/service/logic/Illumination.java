@@ -0,0 +1,163 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+import bfg.backend.service.logic.zones.Terrain;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static bfg.backend.service.logic.Constants.SIZE_CELL;
+import static bfg.backend.service.logic.Constants.SUN_ELEVATION;
+
+/**
+ * Освещенность солнечных станций одной зоны.
+ * Для станции по каждому градусу направления отмечается, закрыто ли солнце: модулями зоны
+ * (угловой размер препятствия) или рельефом (горизонт выше солнца). Направления хранятся битами в long[].
+ * Эффективность всех станций зоны считается сразу; для ColonyModules результат хранится,
+ * пока не изменится состав модулей этой зоны.
+ */
+public class Illumination {
+
+    private static final int DEGREES = 360;
+    private static final int WORDS = (DEGREES + Long.SIZE - 1) / Long.SIZE;
+
+    // Затенение рельефом для каждой клетки зоны, считается при первом обращении
+    private static final Map<Integer, AtomicReferenceArray<long[]>> HORIZONS = new ConcurrentHashMap<>();
+
+    private record Plant(Module module, int efficiency) {}
+
+    private final int zone;
+    private final List<ModuleGrid.Entry> entries;
+    // Станции зоны по id
+    private final Map<Long, Plant> plants = new HashMap<>();
+
+    public Illumination(int zone, List<ModuleGrid.Entry> entries) {
+        this.zone = zone;
+        this.entries = entries;
+        for (ModuleGrid.Entry entry : entries) {
+            Module module = entry.module();
+            if (module.getModule_type() == TypeModule.SOLAR_POWER_PLANT.ordinal() && module.getId() != null) {
+                plants.put(module.getId(), new Plant(module, calculate(module, entry.component().getRadius())));
+            }
+        }
+    }
+
+    /**
+     * Освещенность зоны для списка модулей. Для ColonyModules используется сохраненный результат.
+     */
+    public static Illumination of(List<Module> modules, int zone) {
+        if (modules instanceof ColonyModules colonyModules) {
+            return colonyModules.getIllumination(zone);
+        }
+        return new Illumination(zone, ModuleGrid.of(modules).inZone(zone));
+    }
+
+    /**
+     * Эффективность станции в процентах от освещенности зоны
+     */
+    public int efficiency(Module station, int radius) {
+        Plant plant = station.getId() == null ? null : plants.get(station.getId());
+        // Станция из списка: результат уже посчитан, если она не сдвинута
+        if (plant != null && Objects.equals(plant.module().getX(), station.getX()) &&
+                Objects.equals(plant.module().getY(), station.getY())) {
+            return plant.efficiency();
+        }
+        return calculate(station, radius);
+    }
+
+    private int calculate(Module station, int radius) {
+        long[] shaded = horizon(station.getX(), station.getY()).clone();
+        double sx = station.getX() * SIZE_CELL;
+        double sy = station.getY() * SIZE_CELL;
+        for (ModuleGrid.Entry entry : entries) {
+            Module module = entry.module();
+            if (Objects.equals(module.getId(), station.getId())) continue;
+            double dx = module.getX() * SIZE_CELL - sx;
+            double dy = module.getY() * SIZE_CELL - sy;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            int obstacle = entry.component().getRadius();
+            if (distance == 0 || distance < obstacle) {
+                // Препятствие накрывает станцию
+                return 0;
+            }
+            double angle = (Math.toDegrees(Math.atan2(dy, dx)) + DEGREES) % DEGREES;
+            double shadowWidth = 2 * Math.toDegrees(Math.asin(obstacle / distance));
+            int start = (int) Math.round(angle - shadowWidth / 2 + DEGREES) % DEGREES;
+            int end = (int) Math.round(angle + shadowWidth / 2 + DEGREES) % DEGREES;
+            mark(shaded, start, end);
+        }
+        int lit = DEGREES;
+        for (long word : shaded) lit -= Long.bitCount(word);
+        double maxEfficiency = Zones.getZones().get(zone).getIllumination();
+        return (int) (maxEfficiency * ((lit * 100.0) / DEGREES) / 100.0);
+    }
+
+    /**
+     * Отмечает градусы от start до end включительно, с переходом через 360
+     */
+    private static void mark(long[] bits, int start, int end) {
+        if (start <= end) {
+            markRange(bits, start, end);
+        } else {
+            markRange(bits, start, DEGREES - 1);
+            markRange(bits, 0, end);
+        }
+    }
+
+    private static void markRange(long[] bits, int from, int to) {
+        int first = from / Long.SIZE;
+        int last = to / Long.SIZE;
+        for (int i = first; i <= last; i++) {
+            long mask = -1L;
+            if (i == first) mask &= -1L << (from % Long.SIZE);
+            if (i == last) mask &= -1L >>> (Long.SIZE - 1 - to % Long.SIZE);
+            bits[i] |= mask;
+        }
+    }
+
+    /**
+     * Направления, в которых рельеф зоны поднимается над клеткой (x, y) выше солнца
+     */
+    private long[] horizon(int x, int y) {
+        Terrain terrain = Zones.getZones().get(zone).getTerrain();
+        if (x < 0 || y < 0 || x >= terrain.getColumns() || y >= terrain.getRows()) {
+            return new long[WORDS];
+        }
+        AtomicReferenceArray<long[]> cells = HORIZONS.computeIfAbsent(zone,
+                z -> new AtomicReferenceArray<>(terrain.getColumns() * terrain.getRows()));
+        int k = y * terrain.getColumns() + x;
+        long[] bits = cells.get(k);
+        if (bits == null) {
+            bits = calculateHorizon(terrain, x, y);
+            cells.set(k, bits);
+        }
+        return bits;
+    }
+
+    private static long[] calculateHorizon(Terrain terrain, int x, int y) {
+        long[] bits = new long[WORDS];
+        int height = terrain.getHeight(x, y);
+        double tan = Math.tan(Math.toRadians(SUN_ELEVATION));
+        for (int degree = 0; degree < DEGREES; degree++) {
+            double cos = Math.cos(Math.toRadians(degree));
+            double sin = Math.sin(Math.toRadians(degree));
+            // Идем по лучу с шагом в полклетки до границы зоны
+            for (double t = 0.5; ; t += 0.5) {
+                int cx = (int) Math.round(x + t * cos);
+                int cy = (int) Math.round(y + t * sin);
+                if (cx < 0 || cy < 0 || cx >= terrain.getColumns() || cy >= terrain.getRows()) break;
+                if (cx == x && cy == y) continue;
+                if (terrain.getHeight(cx, cy) - height > t * SIZE_CELL * tan) {
+                    bits[degree / Long.SIZE] |= 1L << (degree % Long.SIZE);
+                    break;
+                }
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,223 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static bfg.backend.service.logic.Constants.*;
+
+/**
+ * Пространственный индекс модулей колонии: равномерная сетка по каждой зоне.
+ * Модуль кладется в ячейку сетки по своему левому верхнему углу, поэтому
+ * для проверки cross() достаточно просмотреть ячейки вокруг прямоугольника,
+ * расширенного на наибольшую сторону модуля.
+ */
+public class ModuleGrid {
+
+    private static final int CELL = 8;
+    // Наибольшая сторона модуля (космодром)
+    private static final int MAX_SIDE = Math.max(COSMODROME_W, COSMODROME_H);
+
+    public record Entry(Module module, Component component) {}
+
+    private final Map<Integer, Map<Long, List<Entry>>> cells = new HashMap<>();
+    private final Map<Integer, List<Entry>> zones = new HashMap<>();
+    private final Map<Integer, List<List<Entry>>> zoneTypes = new HashMap<>();
+    private final List<List<Entry>> types = byType();
+    private final int[] counts = new int[TypeModule.values().length];
+    private final Map<Long, Module> byId = new HashMap<>();
+
+    public ModuleGrid(List<Module> modules) {
+        for (Module module : modules) {
+            add(module, Component.of(modules, module));
+        }
+    }
+
+    /**
+     * Добавляет модуль в индекс. Индекс ColonyModules менять нельзя: он сбрасывается при изменении списка
+     */
+    public void add(Module module, Component component) {
+        Entry entry = new Entry(module, component);
+        cells.computeIfAbsent(module.getId_zone(), k -> new HashMap<>())
+                .computeIfAbsent(key(module.getX(), module.getY()), k -> new ArrayList<>())
+                .add(entry);
+        zones.computeIfAbsent(module.getId_zone(), k -> new ArrayList<>()).add(entry);
+        zoneTypes.computeIfAbsent(module.getId_zone(), k -> byType())
+                .get(module.getModule_type()).add(entry);
+        types.get(module.getModule_type()).add(entry);
+        counts[module.getModule_type()]++;
+        if (module.getId() != null) {
+            byId.put(module.getId(), module);
+        }
+    }
+
+    /**
+     * Индекс списка модулей. Для ColonyModules используется уже построенный индекс.
+     */
+    public static ModuleGrid of(List<Module> modules) {
+        if (modules instanceof ColonyModules colonyModules) {
+            return colonyModules.getGrid();
+        }
+        return new ModuleGrid(modules);
+    }
+
+    /**
+     * Модули зоны, левый верхний угол которых лежит в прямоугольнике [x0, x1] x [y0, y1]
+     */
+    public List<Entry> near(int zone, int x0, int y0, int x1, int y1) {
+        List<Entry> result = new ArrayList<>();
+        Map<Long, List<Entry>> zoneCells = cells.get(zone);
+        if (zoneCells == null) return result;
+        for (int cx = Math.floorDiv(x0, CELL); cx <= Math.floorDiv(x1, CELL); cx++) {
+            for (int cy = Math.floorDiv(y0, CELL); cy <= Math.floorDiv(y1, CELL); cy++) {
+                List<Entry> cell = zoneCells.get(pack(cx, cy));
+                if (cell == null) continue;
+                for (Entry entry : cell) {
+                    Module module = entry.module();
+                    if (module.getX() >= x0 && module.getX() <= x1 && module.getY() >= y0 && module.getY() <= y1) {
+                        result.add(entry);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Модули зоны, для которых cross(x, y, w, h) истинно
+     */
+    public List<Entry> crossing(int zone, int x, int y, int w, int h) {
+        List<Entry> result = near(zone, x - MAX_SIDE, y - MAX_SIDE, x + w, y + h);
+        result.removeIf(entry -> !entry.component().cross(x, y, w, h));
+        return result;
+    }
+
+    /**
+     * Пересекает ли модуль self размера w x h другой модуль своей зоны
+     */
+    public <T extends Module & Component> boolean crosses(T self, int w, int h) {
+        for (Entry entry : crossing(self.getId_zone(), self.getX(), self.getY(), w, h)) {
+            if (!isSelf(entry, self)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Пересекается ли модуль с компонентом component с каким-нибудь модулем индекса в своей зоне.
+     * То же, что crosses, но без размеров модуля: угол одного модуля лежит внутри другого
+     */
+    public boolean overlaps(Module module, Component component) {
+        int x = module.getX(), y = module.getY();
+        for (Entry entry : near(module.getId_zone(), x - MAX_SIDE, y - MAX_SIDE, x + MAX_SIDE, y + MAX_SIDE)) {
+            Module other = entry.module();
+            if (entry.component().cross(x, y, 0, 0) || component.cross(other.getX(), other.getY(), 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Попадает ли модуль self размера w x h в опасную зону космодрома
+     */
+    public <T extends Module & Component> boolean inDanger(T self, int w, int h) {
+        int x = self.getX(), y = self.getY();
+        for (Entry entry : near(self.getId_zone(), x - COSMODROME_W - DANGER_ZONE, y - COSMODROME_H - DANGER_ZONE,
+                x + w + DANGER_ZONE, y + h + DANGER_ZONE)) {
+            Module module = entry.module();
+            if (isSelf(entry, self) || module.getModule_type() != TypeModule.COSMODROME.ordinal()) continue;
+            if (self.cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
+                    COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Примыкает ли модуль self размера w x h к жилому модулю своей зоны
+     */
+    public <T extends Module & Component> boolean nearLive(T self, int w, int h) {
+        int x = self.getX(), y = self.getY();
+        for (Entry entry : near(self.getId_zone(), x - 1 - MAX_SIDE, y - 1 - MAX_SIDE, x + 1 + w, y + 1 + h)) {
+            if (isSelf(entry, self) || !TypeModule.of(entry.module().getModule_type()).isLive()) continue;
+            Component c = entry.component();
+            if (c.cross(x + 1, y, w, h) || c.cross(x - 1, y, w, h) ||
+                    c.cross(x, y + 1, w, h) || c.cross(x, y - 1, w, h)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Есть ли в зоне административный модуль
+     */
+    public boolean hasAdmin(int zone) {
+        return count(zone, TypeModule.ADMINISTRATIVE_MODULE) > 0 ||
+                count(zone, TypeModule.LIVE_ADMINISTRATIVE_MODULE) > 0;
+    }
+
+    public List<Entry> inZone(int zone) {
+        return zones.getOrDefault(zone, List.of());
+    }
+
+    public int count(TypeModule type) {
+        return counts[type.ordinal()];
+    }
+
+    public List<Entry> ofType(TypeModule type) {
+        return types.get(type.ordinal());
+    }
+
+    public List<Entry> ofType(int zone, TypeModule type) {
+        List<List<Entry>> types = zoneTypes.get(zone);
+        return types == null ? List.of() : types.get(type.ordinal());
+    }
+
+    public int count(int zone, TypeModule type) {
+        return ofType(zone, type).size();
+    }
+
+    /**
+     * Количество модулей типа type без учета самого модуля except
+     */
+    public int count(TypeModule type, Module except) {
+        return count(type) - (contains(except, type) ? 1 : 0);
+    }
+
+    public int count(int zone, TypeModule type, Module except) {
+        return count(zone, type) - (contains(except, type) && Objects.equals(except.getId_zone(), zone) ? 1 : 0);
+    }
+
+    private boolean contains(Module module, TypeModule type) {
+        Module listed = module.getId() == null ? null : byId.get(module.getId());
+        return listed != null && listed.getModule_type() == type.ordinal();
+    }
+
+    private static List<List<Entry>> byType() {
+        List<List<Entry>> types = new ArrayList<>(TypeModule.values().length);
+        for (int i = 0; i < TypeModule.values().length; i++) {
+            types.add(new ArrayList<>());
+        }
+        return types;
+    }
+
+    // Модули без id (еще не сохраненные) друг другу не "свои"
+    private static boolean isSelf(Entry entry, Module self) {
+        if (entry.module().getId() == null || self.getId() == null) return false;
+        return Objects.equals(entry.module().getId(), self.getId());
+    }
+
+    private static long key(int x, int y) {
+        return pack(Math.floorDiv(x, CELL), Math.floorDiv(y, CELL));
+    }
+
+    private static long pack(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,232 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Люди колонии: 8 жителей на жилой модуль и потребность в людях остальных модулей.
+ * Модулю хватает людей, если жителей не меньше, чем нужно ему и всем модулям, построенным раньше (с меньшим id).
+ * Потребности хранятся в дереве Фенвика по возрастанию id, поэтому и запрос, и добавление
+ * или удаление модуля выполняются за O(log n). Новый модуль с наибольшим id дописывается в конец;
+ * удаленный оставляет пустую позицию, которые убираются перестройкой, когда их становится больше половины.
+ */
+public class PopulationIndex {
+
+    private static final int PEOPLE_PER_HOUSING = 8;
+
+    // Модули списка по id: true - жилой
+    private final Map<Long, Boolean> housing = new HashMap<>();
+    private int livePeople;
+    private int needTotal;
+
+    // Позиции модулей, которым могут быть нужны люди: id по возрастанию и потребность (0 у удаленных)
+    private long[] ids = new long[16];
+    private int[] need = new int[16];
+    private int[] tree = new int[17];
+    private int size;
+    private int removed;
+
+    public PopulationIndex(List<Module> modules) {
+        List<Module> staffed = new ArrayList<>();
+        for (Module module : modules) {
+            if (isHousing(module)) {
+                livePeople += PEOPLE_PER_HOUSING;
+            } else {
+                needTotal += people(module);
+                if (module.getId() != null) staffed.add(module);
+            }
+            if (module.getId() != null) housing.put(module.getId(), isHousing(module));
+        }
+        staffed.sort(Module::compareTo);
+        rebuild(staffed.size());
+        for (Module module : staffed) {
+            ids[size] = module.getId();
+            need[size] = people(module);
+            size++;
+        }
+        build();
+    }
+
+    /**
+     * Индекс списка модулей. Для ColonyModules используется поддерживаемый индекс.
+     */
+    public static PopulationIndex of(List<Module> modules) {
+        if (modules instanceof ColonyModules colonyModules) {
+            return colonyModules.getPopulation();
+        }
+        return new PopulationIndex(modules);
+    }
+
+    public void add(Module module) {
+        if (isHousing(module)) {
+            livePeople += PEOPLE_PER_HOUSING;
+        } else {
+            needTotal += people(module);
+        }
+        if (module.getId() == null) return;
+        boolean present = housing.containsKey(module.getId());
+        housing.put(module.getId(), isHousing(module));
+        if (isHousing(module)) return;
+
+        long id = module.getId();
+        if (size == 0 || id > ids[size - 1]) {
+            append(id, people(module));
+            return;
+        }
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i >= 0) {
+            // Позиция осталась от удаленного модуля с тем же id
+            if (!present) removed--;
+            update(i, people(module) - need[i]);
+            return;
+        }
+        // Модуль со старым id: вставка в середину, индекс перестраивается
+        List<Long> allIds = new ArrayList<>(size + 1);
+        List<Integer> allNeed = new ArrayList<>(size + 1);
+        for (int k = 0; k < size; k++) {
+            if (k == -i - 1) {
+                allIds.add(id);
+                allNeed.add(people(module));
+            }
+            allIds.add(ids[k]);
+            allNeed.add(need[k]);
+        }
+        if (-i - 1 == size) {
+            allIds.add(id);
+            allNeed.add(people(module));
+        }
+        rebuild(allIds.size());
+        for (int k = 0; k < allIds.size(); k++) {
+            ids[k] = allIds.get(k);
+            need[k] = allNeed.get(k);
+        }
+        size = allIds.size();
+        build();
+    }
+
+    public void remove(Module module) {
+        if (isHousing(module)) {
+            livePeople -= PEOPLE_PER_HOUSING;
+        } else {
+            needTotal -= people(module);
+        }
+        if (module.getId() == null) return;
+        housing.remove(module.getId());
+        if (isHousing(module)) return;
+
+        int i = Arrays.binarySearch(ids, 0, size, module.getId());
+        if (i < 0) return;
+        update(i, -need[i]);
+        removed++;
+        if (removed * 2 > size) compact();
+    }
+
+    /**
+     * Хватает ли людей модулю id. Для модуля, которого нет в списке (проверка места), и для жилого
+     * учитываются все модули.
+     */
+    public boolean enoughPeople(long id) {
+        Boolean live = housing.get(id);
+        if (live == null || live) {
+            return livePeople >= needTotal;
+        }
+        return livePeople >= prefix(Arrays.binarySearch(ids, 0, size, id) + 1);
+    }
+
+    /**
+     * Сколько людей нужно модулям, построенным раньше модуля id (без него самого)
+     */
+    public int needBefore(long id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        return i >= 0 ? prefix(i) : prefix(-i - 1);
+    }
+
+    public int getLivePeople() {
+        return livePeople;
+    }
+
+    public int getNeedPeople() {
+        return needTotal;
+    }
+
+    private void append(long id, int people) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            need = Arrays.copyOf(need, size * 2);
+            tree = Arrays.copyOf(tree, size * 2 + 1);
+        }
+        ids[size] = id;
+        need[size] = people;
+        size++;
+        // Узел i покрывает позиции (i - lowbit(i), i]
+        int i = size;
+        tree[i] = people + prefix(i - 1) - prefix(i - (i & -i));
+    }
+
+    private void update(int position, int delta) {
+        need[position] += delta;
+        for (int i = position + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Сумма потребностей первых count позиций
+     */
+    private int prefix(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void compact() {
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            // id удаленных модулей нет в списке
+            if (!housing.containsKey(ids[i])) continue;
+            ids[k] = ids[i];
+            need[k] = need[i];
+            k++;
+        }
+        size = k;
+        removed = 0;
+        build();
+    }
+
+    private void rebuild(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new long[capacity];
+        need = new int[capacity];
+        tree = new int[capacity + 1];
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * Строит дерево по need за O(n)
+     */
+    private void build() {
+        Arrays.fill(tree, 0);
+        for (int i = 1; i <= size; i++) {
+            tree[i] += need[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size) tree[parent] += tree[i];
+        }
+    }
+
+    private static int people(Module module) {
+        return TypeModule.of(module.getModule_type()).getPeople();
+    }
+
+    private static boolean isHousing(Module module) {
+        return module.getModule_type() == TypeModule.LIVE_MODULE_Y.ordinal() ||
+                module.getModule_type() == TypeModule.LIVE_MODULE_X.ordinal();
+    }
+}
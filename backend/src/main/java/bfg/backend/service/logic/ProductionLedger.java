@@ -0,0 +1,139 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Суммарное производство и потребление модулей колонии, всего и по зонам.
+ * При добавлении или удалении модуля пересчитывается только его вклад и вклад модулей,
+ * чей выход зависит от изменившегося по DependencyGraph (свалки, ремонтные модули, солнечные станции).
+ */
+public class ProductionLedger {
+
+    private final long[] production = new long[TypeResources.values().length];
+    private final long[] consumption = new long[TypeResources.values().length];
+    // [зона][ресурс], вклад модуля относится к его зоне
+    private final long[][] zoneProduction = new long[Zones.getLength()][TypeResources.values().length];
+    private final long[][] zoneConsumption = new long[Zones.getLength()][TypeResources.values().length];
+
+    // Вклад модулей, выход которых зависит от остальных модулей колонии
+    private final Map<Long, Share> dependent = new HashMap<>();
+
+    private record Share(Module module, long[] production, long[] consumption) {}
+
+    public static ProductionLedger recount(List<Module> modules) {
+        ProductionLedger ledger = new ProductionLedger();
+        // копия: ремонтные модули и солнечные станции сортируют переданный список
+        for (Module module : new ArrayList<>(modules)) {
+            ledger.put(module, modules);
+        }
+        return ledger;
+    }
+
+    /**
+     * @param modules модули колонии вместе с добавленным
+     */
+    public void add(Module module, List<Module> modules) {
+        refresh(affected(module), modules);
+        put(module, modules);
+    }
+
+    /**
+     * @param modules модули колонии без удаленного
+     */
+    public void remove(Module module, List<Module> modules) {
+        Share share = dependent.remove(module.getId());
+        apply(share != null ? share : share(module, modules), -1);
+        refresh(affected(module), modules);
+    }
+
+    public long[] getProduction() {
+        return production;
+    }
+
+    public long[] getConsumption() {
+        return consumption;
+    }
+
+    public long[] getProduction(int zone) {
+        return zoneProduction[zone];
+    }
+
+    public long[] getConsumption(int zone) {
+        return zoneConsumption[zone];
+    }
+
+    public boolean matches(ProductionLedger other) {
+        return Arrays.equals(production, other.production) && Arrays.equals(consumption, other.consumption) &&
+                Arrays.deepEquals(zoneProduction, other.zoneProduction) &&
+                Arrays.deepEquals(zoneConsumption, other.zoneConsumption);
+    }
+
+    private void put(Module module, List<Module> modules) {
+        Share share = share(module, modules);
+        apply(share, 1);
+        if (isDependent(module)) {
+            dependent.put(module.getId(), share);
+        }
+    }
+
+    private void refresh(List<Module> affected, List<Module> modules) {
+        for (Module module : affected) {
+            apply(dependent.remove(module.getId()), -1);
+            put(module, modules);
+        }
+    }
+
+    private void apply(Share share, int sign) {
+        long[] zp = zoneProduction[share.module().getId_zone()];
+        long[] zc = zoneConsumption[share.module().getId_zone()];
+        for (int i = 0; i < production.length; i++) {
+            production[i] += sign * share.production()[i];
+            consumption[i] += sign * share.consumption()[i];
+            zp[i] += sign * share.production()[i];
+            zc[i] += sign * share.consumption()[i];
+        }
+    }
+
+    private static Share share(Module module, List<Module> modules) {
+        List<Long> production = new ArrayList<>(TypeResources.values().length);
+        List<Long> consumption = new ArrayList<>(TypeResources.values().length);
+        for (int j = 0; j < TypeResources.values().length; j++) {
+            production.add(0L);
+            consumption.add(0L);
+        }
+        Component component = Component.of(modules, module);
+        component.getProduction(-1, modules, production);
+        component.getConsumption(-1, modules, consumption);
+        return new Share(module, toArray(production), toArray(consumption));
+    }
+
+    private static long[] toArray(List<Long> list) {
+        long[] res = new long[list.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = list.get(i);
+        }
+        return res;
+    }
+
+    private static boolean isDependent(Module module) {
+        return DependencyGraph.isDependent(DependencyGraph.Facet.OUTPUT, TypeModule.of(module.getModule_type()));
+    }
+
+    /**
+     * Модули, выход которых может измениться после добавления или удаления changed
+     */
+    private List<Module> affected(Module changed) {
+        List<Module> candidates = new ArrayList<>(dependent.size());
+        for (Share share : dependent.values()) {
+            candidates.add(share.module());
+        }
+        return DependencyGraph.affected(DependencyGraph.Facet.OUTPUT, changed, candidates);
+    }
+}
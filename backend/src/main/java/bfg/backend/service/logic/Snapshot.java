@@ -0,0 +1,237 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.event.Event;
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.repository.user.User;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static bfg.backend.service.logic.Constants.DAYS_DELIVERY;
+
+/**
+ * Состояние колонии для воспроизведения журнала: день, ресурсы, модули и связи.
+ * Снимок хранится в журнале упакованным (pack), от него события применяются теми же правилами,
+ * что и в ModuleService, LinkService, ProductionService и DayService, без обращения к базе.
+ * Он же копия колонии для SimulationService (of).
+ */
+public class Snapshot {
+
+    private final User user;
+    private final ColonyModules modules;
+    private final List<Link> links;
+    // По возрастанию типа
+    private final List<Resource> resources;
+    private ProductionLedger ledger;
+
+    private Snapshot(User user, ColonyModules modules, List<Link> links, List<Resource> resources) {
+        this.user = user;
+        this.modules = modules;
+        this.links = links;
+        this.resources = resources;
+    }
+
+    /**
+     * Копия состояния колонии для расчета "что будет, если". Модули и связи общие с колонией
+     * (модули в списках не меняются), списки и ресурсы свои. Вызывать под блокировкой колонии.
+     */
+    public static Snapshot of(User user, List<Module> modules, List<Link> links, List<Resource> resources) {
+        User copy = new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(),
+                user.getCurrent_day(), user.getDays_before_delivery(), user.getLive());
+        List<Resource> copies = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            copies.add(new Resource(new Resource.PrimaryKey(resource.getPrimaryKey().getResource_type(), user.getId()),
+                    resource.getCount(), resource.getProduction(), resource.getConsumption(),
+                    resource.getSum_production(), resource.getSum_consumption()));
+        }
+        return new Snapshot(copy, new ColonyModules(modules), new ColonyLinks(links), copies);
+    }
+
+    public static byte[] pack(User user, List<Module> modules, List<Link> links, List<Resource> resources) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 1 + 4 + resources.size() * 5 * 8 +
+                4 + modules.size() * (8 + 4 * 4) + 4 + links.size() * 3 * 4);
+        buffer.putInt(user.getCurrent_day());
+        buffer.putInt(user.getDays_before_delivery());
+        buffer.put((byte) (user.getLive() ? 1 : 0));
+        buffer.putInt(resources.size());
+        for (Resource resource : resources) {
+            buffer.putLong(resource.getCount());
+            buffer.putLong(resource.getProduction());
+            buffer.putLong(resource.getConsumption());
+            buffer.putLong(resource.getSum_production());
+            buffer.putLong(resource.getSum_consumption());
+        }
+        buffer.putInt(modules.size());
+        for (Module module : modules) {
+            buffer.putLong(module.getId());
+            buffer.putInt(module.getId_zone());
+            buffer.putInt(module.getModule_type());
+            buffer.putInt(module.getX());
+            buffer.putInt(module.getY());
+        }
+        buffer.putInt(links.size());
+        for (Link link : links) {
+            buffer.putInt(link.getPrimaryKey().getType());
+            buffer.putInt(link.getPrimaryKey().getId_zone1());
+            buffer.putInt(link.getPrimaryKey().getId_zone2());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @param user пользователь, имя и почта которого подставляются в состояние
+     */
+    public static Snapshot unpack(User user, byte[] state) {
+        ByteBuffer buffer = ByteBuffer.wrap(state);
+        User copy = new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(),
+                buffer.getInt(), buffer.getInt(), buffer.get() == 1);
+        List<Resource> resources = new ArrayList<>();
+        int count = buffer.getInt();
+        for (int type = 0; type < count; type++) {
+            resources.add(new Resource(new Resource.PrimaryKey(type, user.getId()), buffer.getLong(),
+                    buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+        ColonyModules modules = new ColonyModules();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            modules.add(new Module(buffer.getLong(), user.getId(), buffer.getInt(), buffer.getInt(),
+                    buffer.getInt(), buffer.getInt()));
+        }
+        List<Link> links = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            links.add(new Link(new Link.PrimaryKey(buffer.getInt(), user.getId(), buffer.getInt(), buffer.getInt())));
+        }
+        return new Snapshot(copy, modules, links, resources);
+    }
+
+    public void apply(Event event) {
+        switch (event.getEventType()) {
+            case MODULE_PLACED -> {
+                Module module = event.toModule();
+                modules.add(module);
+                if (ledger == null) ledger = ProductionLedger.recount(modules);
+                else ledger.add(module, modules);
+                production();
+                spend(TypeModule.of(module.getModule_type()).getCost());
+            }
+            case MODULE_REMOVED -> {
+                Module removed = null;
+                for (Module module : modules) {
+                    if (Objects.equals(module.getId(), event.getId_module())) removed = module;
+                }
+                if (removed == null) return;
+                modules.remove(removed);
+                if (ledger == null) ledger = ProductionLedger.recount(modules);
+                else ledger.remove(removed, modules);
+                production();
+            }
+            case LINK_BUILT -> {
+                Link link = event.toLink();
+                links.add(link);
+                if (link.getPrimaryKey().getType() == 0) {
+                    spend(way(link));
+                } else {
+                    Resource wt = resources.get(TypeResources.WT.ordinal());
+                    wt.setConsumption(wt.getConsumption() + way(link) * 12L / 10000);
+                }
+            }
+            case LINK_REMOVED -> {
+                Link link = event.toLink();
+                if (!links.removeIf(l -> l.getPrimaryKey().equals(link.getPrimaryKey()))) return;
+                if (link.getPrimaryKey().getType() == 1) {
+                    Resource wt = resources.get(TypeResources.WT.ordinal());
+                    wt.setConsumption(wt.getConsumption() - way(link) * 12L / 10000);
+                }
+            }
+            case DAYS_ADVANCED -> advance(event.getDays());
+            case SNAPSHOT -> {}
+        }
+    }
+
+    /**
+     * Прокрутка дней, как в DayService.addDays
+     */
+    public void advance(int days) {
+        int n = resources.size();
+        long[] count = new long[n];
+        long[] production = new long[n];
+        long[] consumption = new long[n];
+        long[] sumProduction = new long[n];
+        long[] sumConsumption = new long[n];
+        for (int i = 0; i < n; i++) {
+            Resource resource = resources.get(i);
+            count[i] = resource.getCount();
+            production[i] = resource.getProduction();
+            consumption[i] = resource.getConsumption();
+            sumProduction[i] = resource.getSum_production();
+            sumConsumption[i] = resource.getSum_consumption();
+        }
+
+        long[] diff = new long[n];
+        int currentDay = user.getCurrent_day();
+        int daysBeforeDelivery = user.getDays_before_delivery();
+        boolean live = user.getLive();
+        for (int day = 0; live && day < days; day++) {
+            currentDay++;
+            boolean delivery = daysBeforeDelivery == 1;
+            daysBeforeDelivery = delivery ? DAYS_DELIVERY : daysBeforeDelivery - 1;
+            DaySimulator.electrolysis(production, consumption);
+            live = DaySimulator.nextDay(count, production, consumption, sumProduction, sumConsumption, delivery, diff);
+        }
+
+        for (int i = 0; i < n; i++) {
+            Resource resource = resources.get(i);
+            resource.setCount(count[i]);
+            resource.setProduction(production[i]);
+            resource.setConsumption(consumption[i]);
+            resource.setSum_production(sumProduction[i]);
+            resource.setSum_consumption(sumConsumption[i]);
+        }
+        user.setCurrent_day(currentDay);
+        user.setDays_before_delivery(daysBeforeDelivery);
+        user.setLive(live);
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<Module> getModules() {
+        return modules;
+    }
+
+    public List<Link> getLinks() {
+        return links;
+    }
+
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    // Как ProductionService.save
+    private void production() {
+        long consWt = 0L;
+        for (Link link : links) {
+            if (link.getPrimaryKey().getType() == 1) consWt += way(link);
+        }
+        consWt = consWt * 12L / 10000;
+        for (int i = 0; i < resources.size() - 1; i++) {
+            resources.get(i).setProduction(ledger.getProduction()[i]);
+            resources.get(i).setConsumption(ledger.getConsumption()[i] + (i == TypeResources.WT.ordinal() ? consWt : 0L));
+        }
+    }
+
+    private void spend(int material) {
+        Resource mat = resources.get(TypeResources.MATERIAL.ordinal());
+        mat.setCount(mat.getCount() - material);
+        if (mat.getCount() < 0) user.setLive(false);
+    }
+
+    private static int way(Link link) {
+        return Zones.getZones().get(link.getPrimaryKey().getId_zone1()).getWays()[link.getPrimaryKey().getId_zone2()];
+    }
+}
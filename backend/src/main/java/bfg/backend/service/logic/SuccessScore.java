@@ -0,0 +1,105 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.dto.responce.successful.Successful;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.util.List;
+
+import static bfg.backend.service.logic.Constants.DAYS_DELIVERY;
+import static bfg.backend.service.logic.Constants.MASS;
+
+/**
+ * Составляющие успешности, зависящие только от модулей колонии: люди, административные,
+ * исследовательские, медицинские и спортивные модули. Административный или исследовательский модуль
+ * учитывается, если людей хватает ему и всем модулям, построенным раньше.
+ * Для ColonyModules хранится, пока не изменится состав модулей; ресурсы подставляются при расчете.
+ */
+public class SuccessScore {
+
+    private static final TypeModule[] RESEARCH = {
+            TypeModule.RESEARCH_MODULE_MINE,
+            TypeModule.RESEARCH_MODULE_PLANTATION,
+            TypeModule.RESEARCH_MODULE_TELESCOPE,
+            TypeModule.RESEARCH_MODULE_TERRITORY
+    };
+
+    private final int countPeople;
+    private final int needCountPeople;
+    private final int countA;
+    private final int countSearch;
+    private final int countM;
+    private final int countS;
+
+    public SuccessScore(ModuleGrid grid, PopulationIndex population) {
+        countPeople = population.getLivePeople();
+        needCountPeople = population.getNeedPeople();
+
+        int admins = 0;
+        for (TypeModule type : new TypeModule[]{TypeModule.ADMINISTRATIVE_MODULE, TypeModule.LIVE_ADMINISTRATIVE_MODULE}) {
+            for (ModuleGrid.Entry entry : grid.ofType(type)) {
+                if (population.needBefore(entry.module().getId()) < countPeople) admins++;
+            }
+        }
+        countA = admins;
+
+        int search = 0;
+        for (TypeModule type : RESEARCH) {
+            for (ModuleGrid.Entry entry : grid.ofType(type)) {
+                if (population.needBefore(entry.module().getId()) < countPeople) {
+                    search++;
+                    break;
+                }
+            }
+        }
+        countSearch = search;
+
+        countM = grid.count(TypeModule.MEDICAL_MODULE);
+        countS = grid.count(TypeModule.SPORT_MODULE);
+    }
+
+    /**
+     * Составляющие для списка модулей. Для ColonyModules используется сохраненный результат.
+     */
+    public static SuccessScore of(List<Module> modules) {
+        if (modules instanceof ColonyModules colonyModules) {
+            return colonyModules.getScore();
+        }
+        return new SuccessScore(ModuleGrid.of(modules), PopulationIndex.of(modules));
+    }
+
+    public Successful evaluate(List<Resource> resources) {
+        long[] production = new long[resources.size()];
+        long[] consumption = new long[resources.size()];
+        for (int i = 0; i < resources.size(); i++) {
+            production[i] = resources.get(i).getProduction();
+            consumption[i] = resources.get(i).getConsumption();
+        }
+        return evaluate(production, consumption);
+    }
+
+    /**
+     * Успешность при заданных производстве и потреблении, индексированных по TypeResources.ordinal()
+     */
+    public Successful evaluate(long[] production, long[] consumption) {
+        long sumDiff = 0L;
+        for (int i = 0; i < production.length; i++) {
+            long diff = production[i] - consumption[i];
+            if(diff < 0) sumDiff -= diff;
+        }
+        int statResources = Math.toIntExact(100 - (sumDiff * DAYS_DELIVERY) / MASS * 100);
+
+        int mood = 0;
+        if(countPeople != 0) {
+            int food = TypeResources.FOOD.ordinal();
+            mood = (int) (Math.min((countM + countS) * 3 * 8 / countPeople * 25, 50) +
+                    (statResources + Math.min(production[food] / (consumption[food] * 0.3), 100)) / 4);
+        }
+        int central = Math.min(countA / Zones.getLength() * 100, 100);
+        int search = Math.min(countSearch * 25, 100);
+        int successful = (int) (mood * 0.19 + (100 - Math.max(needCountPeople - countPeople, 0) * 15) * 0.21 +
+                statResources * 0.21 + central * 0.21 + search * 0.18);
+        return new Successful(successful, mood, countPeople, needCountPeople, statResources, central, search);
+    }
+}
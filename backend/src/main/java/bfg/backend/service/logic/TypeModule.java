@@ -31,6 +31,9 @@ public enum TypeModule {
     WAREHOUSE_FUEL(0, 14000, false, WarehouseFuel::new),
     WAREHOUSE_MATERIAL(0, 14000, false, WarehouseMaterial::new);
 
+    // values() каждый раз копирует массив
+    private static final TypeModule[] VALUES = values();
+
     private final int cost;
     private final int people;
     private final boolean live;
@@ -45,6 +48,10 @@ public enum TypeModule {
         constructor = c;
     }
 
+    public static TypeModule of(int type){
+        return VALUES[type];
+    }
+
     public Component createModule(Module module){
         return constructor.create(module);
     }
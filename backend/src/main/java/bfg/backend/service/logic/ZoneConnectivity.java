@@ -0,0 +1,98 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Связность зон колонии по связям типа 0. Добавление связи объединяет зоны сразу (Component.UnionFind),
+ * после удаления структура перестраивается по оставшимся связям при следующем запросе.
+ * Проверка связности - O(α(n)). Число зон растет, если связь ссылается на зону за пределами.
+ * add и remove вызывать под блокировкой колонии; connected можно вызывать из нескольких потоков сразу
+ * (CheckPlaceService.checkMap), но не одновременно с add и remove.
+ */
+public class ZoneConnectivity {
+
+    private int size;
+    // Связи типа 0 по паре зон (меньшая, большая) с числом одинаковых
+    private final Map<Long, Integer> edges = new HashMap<>();
+    private volatile Component.UnionFind unionFind;
+    private volatile boolean stale;
+
+    public ZoneConnectivity(List<Link> links) {
+        size = Zones.getLength();
+        for (Link link : links) {
+            add(link);
+        }
+    }
+
+    /**
+     * Связность для списка связей. Для ColonyLinks используется поддерживаемая.
+     */
+    public static ZoneConnectivity of(List<Link> links) {
+        if (links instanceof ColonyLinks colonyLinks) {
+            return colonyLinks.getConnectivity();
+        }
+        return new ZoneConnectivity(links);
+    }
+
+    public void add(Link link) {
+        if (link.getPrimaryKey().getType() != 0) return;
+        int a = link.getPrimaryKey().getId_zone1();
+        int b = link.getPrimaryKey().getId_zone2();
+        edges.merge(key(a, b), 1, Integer::sum);
+        if (Math.max(a, b) >= size) {
+            size = Math.max(Math.max(a, b) + 1, size * 2);
+            stale = true;
+        }
+        if (!stale && unionFind != null) unionFind.union(a, b);
+    }
+
+    public void remove(Link link) {
+        if (link.getPrimaryKey().getType() != 0) return;
+        long key = key(link.getPrimaryKey().getId_zone1(), link.getPrimaryKey().getId_zone2());
+        Integer count = edges.get(key);
+        if (count == null) return;
+        if (count == 1) {
+            edges.remove(key);
+            stale = true;
+        } else {
+            edges.put(key, count - 1);
+        }
+    }
+
+    /**
+     * Перестраивает структуру сейчас, если нужно: дальше connected только читает ее
+     */
+    public void prepare() {
+        if (stale || unionFind == null) rebuild();
+    }
+
+    public boolean connected(int zone1, int zone2) {
+        if (zone1 == zone2) return true;
+        if (Math.max(zone1, zone2) >= size) return false;
+        // stale читается раньше unionFind: после stale = false виден уже перестроенный
+        Component.UnionFind current = stale ? null : unionFind;
+        if (current == null) current = rebuild();
+        return current.find(zone1) == current.find(zone2);
+    }
+
+    // Строится целиком и только потом публикуется, чтобы параллельные connected не видели недостроенную
+    private synchronized Component.UnionFind rebuild() {
+        if (!stale && unionFind != null) return unionFind;
+        Component.UnionFind built = new Component.UnionFind(size);
+        for (long key : edges.keySet()) {
+            built.union((int) (key >>> 32), (int) key);
+        }
+        unionFind = built;
+        stale = false;
+        return built;
+    }
+
+    private static long key(int zone1, int zone2) {
+        return ((long) Math.min(zone1, zone2) << 32) | Math.max(zone1, zone2);
+    }
+}
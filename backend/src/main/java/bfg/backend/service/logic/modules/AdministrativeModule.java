@@ -4,16 +4,13 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
+import bfg.backend.service.logic.ZoneConnectivity;
 import bfg.backend.service.logic.zones.Zones;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-
-import static bfg.backend.service.logic.Constants.*;
-import static bfg.backend.service.logic.Constants.DANGER_ZONE;
 
 public class AdministrativeModule extends Module implements Component {
 
@@ -21,7 +18,6 @@ public class AdministrativeModule extends Module implements Component {
     private final static int w = 2;
     private final static double MAX_ANGLE = 10;
 
-
     public AdministrativeModule(Module module) {
         super(module.getId(), module.getId_user(), module.getId_zone(),
                 module.getModule_type(), module.getX(), module.getY());
@@ -33,62 +29,26 @@ public class AdministrativeModule extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
-        int cos = -1;
-        for (int i = 0; i < modules.size(); i++) {
-            if(Objects.equals(modules.get(i).getId_zone(), getId_zone())) {
-                if (Objects.equals(modules.get(i).getModule_type(), getModule_type()) ||
-                        modules.get(i).getModule_type() == TypeModule.LIVE_ADMINISTRATIVE_MODULE.ordinal()) {
-                    return null;
-                }
-            }
-            if(modules.get(i).getModule_type() == TypeModule.COSMODROME.ordinal()) cos = i;
+        // Зона последнего построенного космодрома
+        Integer cos = null;
+        for (Module module : modules) {
+            if(module.getModule_type() == TypeModule.COSMODROME.ordinal()) cos = module.getId_zone();
         }
-        if(cos == -1) return null;
-
-        for (Module module : modules){
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if(grid.count(getId_zone(), TypeModule.of(getModule_type())) > 0 ||
+                grid.count(getId_zone(), TypeModule.LIVE_ADMINISTRATIVE_MODULE) > 0){
+            return null;
         }
-
-        if(Objects.equals(getId_zone(), modules.get(cos).getId_zone())) return 100;
-
-        UnionFind unionFind = new UnionFind(Zones.getLength());
-        for (Link link: links){
-            if(link.getPrimaryKey().getType() == 1) continue;
-            unionFind.union(link.getPrimaryKey().getId_zone1(), link.getPrimaryKey().getId_zone2());
+        if(cos == null) return null;
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-
-        if(unionFind.find(cos) == unionFind.find(getId_zone())) return 100;
+        if(ZoneConnectivity.of(links).connected(cos, getId_zone())) return 100;
         return null;
     }
 
@@ -4,15 +4,12 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.List;
-import java.util.Objects;
-
-import static bfg.backend.service.logic.Constants.*;
-import static bfg.backend.service.logic.Constants.DANGER_ZONE;
 
 public class AstronomicalSite extends Module implements Component {
     private final static int h = 2;
@@ -29,57 +26,19 @@ public class AstronomicalSite extends Module implements Component {
     }
 
     @Override
-    public Integer getRelief(){
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+    public Integer getRelief() {
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
         if(!enoughPeople(modules, getId())) return null;
-        boolean admin = false;
-        for (Module module : modules) {
-            if (Objects.equals(module.getId_zone(), getId_zone())) {
-                if (Objects.equals(module.getModule_type(), getModule_type())) {
-                    return null;
-                }
-                if (module.getModule_type() == TypeModule.ADMINISTRATIVE_MODULE.ordinal() ||
-                        module.getModule_type() == TypeModule.LIVE_ADMINISTRATIVE_MODULE.ordinal()) {
-                    admin = true;
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if(grid.count(getId_zone(), TypeModule.ASTRONOMICAL_SITE) > 0) return null;
+        if(!grid.hasAdmin(getId_zone())) return null;
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(!admin) return null;
-
-        for (Module module : modules){
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-            }
-        }
-
         return 100;
     }
 
@@ -4,12 +4,12 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.List;
-import java.util.Objects;
 
 import static bfg.backend.service.logic.Constants.*;
 import static bfg.backend.service.logic.Constants.DANGER_ZONE;
@@ -30,57 +30,24 @@ public class CommunicationTower extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
         if(!enoughPeople(modules, getId())) return null;
+        ModuleGrid grid = ModuleGrid.of(modules);
         int totalRac = 0;
-        for (Module value : modules) {
-            if (Objects.equals(value.getModule_type(), getModule_type())) {
-                totalRac += ILLUMINATION[value.getId_zone()];
-                if (totalRac >= 100) {
-                    return null;
-                }
-            }
+        for (int zone = 0; zone < ILLUMINATION.length; zone++) {
+            totalRac += grid.count(zone, TypeModule.COMMUNICATION_TOWER) * ILLUMINATION[zone];
         }
-
-        boolean admin = false;
-        for (Module module : modules){
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-                if(module.getModule_type() == TypeModule.ADMINISTRATIVE_MODULE.ordinal() ||
-                module.getModule_type() == TypeModule.LIVE_ADMINISTRATIVE_MODULE.ordinal()){
-                    admin = true;
-                }
-            }
+        if (totalRac >= 100) {
+            return null;
+        }
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(admin) return Math.min(100 - totalRac, ILLUMINATION[getId_zone()]);
+        if(grid.hasAdmin(getId_zone())) return Math.min(100 - totalRac, ILLUMINATION[getId_zone()]);
         return null;
     }
 
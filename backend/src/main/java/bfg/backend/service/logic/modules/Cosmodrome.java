@@ -4,11 +4,11 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.List;
-import java.util.Objects;
 
 public class Cosmodrome extends Module implements Component {
     private final static int h = 6;
@@ -26,43 +26,19 @@ public class Cosmodrome extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
-        for (Module value : modules) {
-            if (Objects.equals(value.getModule_type(), getModule_type())) {
-                if(Objects.equals(value.getId(), getId())) continue;
-                return null;
-            }
-        }
-        int count1 = 0;
-        int count2 = 0;
-        int count3 = 0;
-        int count4 = 0;
-        for (Module module : modules) {
-            switch (TypeModule.values()[module.getModule_type()]) {
-                case WAREHOUSE_FOOD -> count1 = 1;
-                case WAREHOUSE_FUEL -> count2 = 1;
-                case WAREHOUSE_GASES -> count3 = 1;
-                case WAREHOUSE_MATERIAL -> count4 = 1;
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if (grid.count(TypeModule.COSMODROME, this) > 0) {
+            return null;
         }
+        int count1 = grid.count(TypeModule.WAREHOUSE_FOOD) > 0 ? 1 : 0;
+        int count2 = grid.count(TypeModule.WAREHOUSE_FUEL) > 0 ? 1 : 0;
+        int count3 = grid.count(TypeModule.WAREHOUSE_GASES) > 0 ? 1 : 0;
+        int count4 = grid.count(TypeModule.WAREHOUSE_MATERIAL) > 0 ? 1 : 0;
         return 20 + 20 * (count1 + count2 + count3 + count4);
     }
 
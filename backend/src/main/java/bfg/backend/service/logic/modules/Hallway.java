@@ -4,15 +4,11 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
-import bfg.backend.service.logic.TypeModule;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.List;
-import java.util.Objects;
-
-import static bfg.backend.service.logic.Constants.*;
-import static bfg.backend.service.logic.Constants.DANGER_ZONE;
 
 public class Hallway extends Module implements Component {
     private final static int h = 1;
@@ -29,47 +25,17 @@ public class Hallway extends Module implements Component {
     }
 
     @Override
-    public Integer getRelief(){
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+    public Integer getRelief() {
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
-        boolean connect = false;
-        for(Module module : modules){
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-                if(!connect && TypeModule.values()[module.getModule_type()].isLive()){
-                    connect = c.cross(getX() + 1, getY(), w, h) || c.cross(getX() - 1, getY(), w, h) ||
-                            c.cross(getX(), getY() + 1, w, h) || c.cross(getX(), getY() - 1, w, h);
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(connect){
+        if(grid.nearLive(this, w, h)){
             return 100;
         }
         return null;
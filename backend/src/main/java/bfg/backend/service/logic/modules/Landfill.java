@@ -4,16 +4,13 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-
-import static bfg.backend.service.logic.Constants.*;
-import static bfg.backend.service.logic.Constants.DANGER_ZONE;
 
 public class Landfill extends Module implements Component {
     private final static int h = 2;
@@ -22,7 +19,6 @@ public class Landfill extends Module implements Component {
 
     private long mass = 0; // кг поступаемого мусора
 
-
     public Landfill(Module module) {
         super(module.getId(), module.getId_user(), module.getId_zone(),
                 module.getModule_type(), module.getX(), module.getY());
@@ -34,54 +30,19 @@ public class Landfill extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
         if(!enoughPeople(modules, getId())) return null;
-        boolean admin = false;
-        int src = 0, other = 50;
-        for (Module module : modules){
-            if(Objects.equals(module.getModule_type(), getModule_type())){
-                other = 0;
-            } else if (module.getModule_type() == TypeModule.REPAIR_MODULE.ordinal()) {
-                src = 50;
-            }
-
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-                if(module.getModule_type() == TypeModule.ADMINISTRATIVE_MODULE.ordinal() ||
-                        module.getModule_type() == TypeModule.LIVE_ADMINISTRATIVE_MODULE.ordinal()){
-                    admin = true;
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        int other = grid.count(TypeModule.LANDFILL) > 0 ? 0 : 50;
+        int src = grid.count(TypeModule.REPAIR_MODULE) > 0 ? 50 : 0;
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(admin) return src + other;
+        if(grid.hasAdmin(getId_zone())) return src + other;
         return null;
     }
 
@@ -89,21 +50,18 @@ public class Landfill extends Module implements Component {
     public void getProduction(int idZone, List<Module> modules, List<Long> production) {
         long count = 0;
 
-        for (Module module : modules) {
-            if (module.getModule_type() == TypeModule.REPAIR_MODULE.ordinal()) {
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                List<Long> t = new ArrayList<>(production.size());
-                for (int i = 0; i < production.size(); i++) {
-                    t.add(0L);
-                }
-                c.getConsumption(idZone, modules, t);
-                count += t.get(TypeResources.MATERIAL.ordinal());
+        for (ModuleGrid.Entry entry : ModuleGrid.of(modules).ofType(TypeModule.REPAIR_MODULE)) {
+            List<Long> t = new ArrayList<>(production.size());
+            for (int i = 0; i < production.size(); i++) {
+                t.add(0L);
             }
+            entry.component().getConsumption(idZone, modules, t);
+            count += t.get(TypeResources.MATERIAL.ordinal());
         }
         mass = count;
 
         production.set(TypeResources.MATERIAL.ordinal(), production.get(TypeResources.MATERIAL.ordinal()) + count * 800 / 1000);
-        production.set(TypeResources.GARBAGE.ordinal(), production.get(TypeResources.MATERIAL.ordinal()) + count * 200 / 1000);
+        production.set(TypeResources.GARBAGE.ordinal(), production.get(TypeResources.GARBAGE.ordinal()) + count * 200 / 1000);
     }
 
     @Override
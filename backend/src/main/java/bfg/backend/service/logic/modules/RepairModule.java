@@ -4,11 +4,13 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
@@ -19,8 +21,6 @@ public class RepairModule extends Module implements Component {
     private final static int w = 2;
     private final static double MAX_ANGLE = 10;
 
-    private int count = 0;
-
     public RepairModule(Module module) {
         super(module.getId(), module.getId_user(), module.getId_zone(),
                 module.getModule_type(), module.getX(), module.getY());
@@ -32,83 +32,18 @@ public class RepairModule extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
         if(!enoughPeople(modules, getId())) return null;
-        boolean admin = false;
-        boolean cur = false;
-
-        modules.sort(Module::compareTo);
-        List<Component> repair = new ArrayList<>();
-
-        for (Module module : modules){
-            if(Objects.equals(module.getId(), getId())) {
-                cur = true;
-                for(Component component : repair){
-                    if(component.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
-                            w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                        repair.remove(component);
-                        count++;
-                        if(count == MAX_COUNT_REPAIRED) break;
-                    }
-                }
-                continue;
-            }
-
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-                if(module.getModule_type() == TypeModule.ADMINISTRATIVE_MODULE.ordinal() ||
-                        module.getModule_type() == TypeModule.LIVE_ADMINISTRATIVE_MODULE.ordinal()){
-                    admin = true;
-                }
-                if(!cur && Objects.equals(module.getModule_type(), getModule_type())){
-                    int co = MAX_COUNT_REPAIRED;
-                    for(Component component : repair){
-                        if(component.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
-                                w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                            repair.remove(component);
-                            co--;
-                            if(co == 0) break;
-                        }
-                    }
-                } else if (cur) {
-                    if(count < MAX_COUNT_REPAIRED && c.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
-                            w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                        count++;
-                    }
-                }
-                else {
-                    repair.add(c);
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(admin) return count / MAX_COUNT_REPAIRED * 100;
+        int count = countRepaired(grid);
+        if(grid.hasAdmin(getId_zone())) return count / MAX_COUNT_REPAIRED * 100;
         return null;
     }
 
@@ -117,18 +52,38 @@ public class RepairModule extends Module implements Component {
 
     @Override
     public void getConsumption(int idZone, List<Module> modules, List<Long> consumption) {
-        boolean cur = false;
+        int count = countRepaired(ModuleGrid.of(modules));
+
+        consumption.set(TypeResources.WT.ordinal(), consumption.get(TypeResources.WT.ordinal()) + 4800L + 2000L * count);
+        consumption.set(TypeResources.MATERIAL.ordinal(), (long) (consumption.get(TypeResources.MATERIAL.ordinal()) + CON_MATERIAL_BY_REPAIRED * count * 1000));
+    }
+
+    /**
+     * Считает модули в радиусе ремонта, которые обслуживает этот модуль.
+     * Модули зоны перебираются по возрастанию id, ремонтные модули с меньшим id забирают часть модулей себе.
+     * Модули вне радиуса ни на что не влияют, поэтому берутся только они и ремонтные модули зоны.
+     */
+    private int countRepaired(ModuleGrid grid) {
+        int count = 0;
+        List<ModuleGrid.Entry> entries = new ArrayList<>(grid.ofType(getId_zone(), TypeModule.REPAIR_MODULE));
+        for (ModuleGrid.Entry entry : grid.crossing(getId_zone(), getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
+                w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)) {
+            if (entry.module().getModule_type() != TypeModule.REPAIR_MODULE.ordinal()) entries.add(entry);
+        }
+        entries.sort((a, b) -> a.module().compareTo(b.module()));
 
-        modules.sort(Module::compareTo);
+        boolean cur = false;
         List<Component> repair = new ArrayList<>();
 
-        for (Module module : modules){
+        for (ModuleGrid.Entry entry : entries){
+            Module module = entry.module();
             if(Objects.equals(module.getId(), getId())) {
                 cur = true;
-                for(Component component : repair){
+                for(Iterator<Component> it = repair.iterator(); it.hasNext(); ){
+                    Component component = it.next();
                     if(component.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
                             w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                        repair.remove(component);
+                        it.remove();
                         count++;
                         if(count == MAX_COUNT_REPAIRED) break;
                     }
@@ -136,32 +91,29 @@ public class RepairModule extends Module implements Component {
                 continue;
             }
 
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(!cur && Objects.equals(module.getModule_type(), getModule_type())){
-                    int co = MAX_COUNT_REPAIRED;
-                    for(Component component : repair){
-                        if(component.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
-                                w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                            repair.remove(component);
-                            co--;
-                            if(co == 0) break;
-                        }
-                    }
-                } else if (cur) {
-                    if(count < MAX_COUNT_REPAIRED && c.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
+            Component c = entry.component();
+            if(!cur && Objects.equals(module.getModule_type(), getModule_type())){
+                int co = MAX_COUNT_REPAIRED;
+                for(Iterator<Component> it = repair.iterator(); it.hasNext(); ){
+                    Component component = it.next();
+                    if(component.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
                             w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
-                        count++;
+                        it.remove();
+                        co--;
+                        if(co == 0) break;
                     }
                 }
-                else {
-                    repair.add(c);
+            } else if (cur) {
+                if(count < MAX_COUNT_REPAIRED && c.cross(getX() - REPAIR_ZONE, getY() - REPAIR_ZONE,
+                        w + 2 * REPAIR_ZONE, h + 2 * REPAIR_ZONE)){
+                    count++;
                 }
             }
+            else {
+                repair.add(c);
+            }
         }
-
-        consumption.set(TypeResources.WT.ordinal(), consumption.get(TypeResources.WT.ordinal()) + 4800L + 2000L * count);
-        consumption.set(TypeResources.MATERIAL.ordinal(), (long) (consumption.get(TypeResources.MATERIAL.ordinal()) + CON_MATERIAL_BY_REPAIRED * count * 1000));
+        return count;
     }
 
     @Override
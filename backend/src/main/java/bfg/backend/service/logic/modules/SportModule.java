@@ -4,23 +4,18 @@ import bfg.backend.repository.link.Link;
 import bfg.backend.repository.module.Module;
 import bfg.backend.repository.resource.Resource;
 import bfg.backend.service.logic.Component;
+import bfg.backend.service.logic.ModuleGrid;
 import bfg.backend.service.logic.TypeModule;
 import bfg.backend.service.logic.TypeResources;
 import bfg.backend.service.logic.zones.Zones;
 
 import java.util.List;
-import java.util.Objects;
-
-import static bfg.backend.service.logic.Constants.*;
-import static bfg.backend.service.logic.Constants.DANGER_ZONE;
 
 public class SportModule extends Module implements Component {
     private final static int h = 1;
     private final static int w = 1;
     private final static double MAX_ANGLE = 10;
 
-    private int countPeople = 0;
-
     public SportModule(Module module) {
         super(module.getId(), module.getId_user(), module.getId_zone(),
                 module.getModule_type(), module.getX(), module.getY());
@@ -32,71 +27,28 @@ public class SportModule extends Module implements Component {
 
     @Override
     public Integer getRelief() {
-        int x = getX();
-        int y = getY();
-        double maxAngle = 0;
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                try {
-                    maxAngle = Math.max(maxAngle, Zones.getZones().get(getId_zone()).getCells()[y + i][x + j].getAngle());
-                }catch (ArrayIndexOutOfBoundsException e){
-                    return null;
-                }
-            }
-        }
-        int res = (int) ((MAX_ANGLE - maxAngle) * 10);
-        if(res <= 0) return null;
-        return res;
+        return Zones.getZones().get(getId_zone()).relief(getX(), getY(), w, h, MAX_ANGLE);
     }
 
     @Override
     public Integer getRationality(List<Module> modules, List<Link> links, List<Resource> resources) {
         if(!enoughPeople(modules, getId())) return null;
-        boolean connect = false;
-        int countLive = 0;
-        int countSport = 1;
-        for(Module module : modules){
-            if(Objects.equals(module.getId_zone(), getId_zone())){
-                if(Objects.equals(module.getId(), getId())) continue;
-                Component c = TypeModule.values()[module.getModule_type()].createModule(module);
-                if(c.cross(getX(), getY(), w, h)){
-                    return null;
-                }
-                if(module.getModule_type() == TypeModule.COSMODROME.ordinal()){
-                    if(cross(module.getX() - DANGER_ZONE, module.getY() - DANGER_ZONE,
-                            COSMODROME_W + 2 * DANGER_ZONE, COSMODROME_H + 2 * DANGER_ZONE)){
-                        return null;
-                    }
-                }
-                if(!connect && TypeModule.values()[module.getModule_type()].isLive()){
-                    connect = c.cross(getX() + 1, getY(), w, h) || c.cross(getX() - 1, getY(), w, h) ||
-                            c.cross(getX(), getY() + 1, w, h) || c.cross(getX(), getY() - 1, w, h);
-                }
-                if (module.getModule_type() == TypeModule.MEDICAL_MODULE.ordinal()) {
-                    countSport++;
-                } else if (module.getModule_type() == TypeModule.LIVE_MODULE_X.ordinal() ||
-                        module.getModule_type() == TypeModule.LIVE_MODULE_Y.ordinal()){
-                    countLive++;
-                }
-            }
+        ModuleGrid grid = ModuleGrid.of(modules);
+        if(grid.crosses(this, w, h) || grid.inDanger(this, w, h)){
+            return null;
         }
-        if(connect){
+        if(grid.nearLive(this, w, h)){
+            int countSport = 1 + grid.count(getId_zone(), TypeModule.MEDICAL_MODULE, this);
+            int countLive = grid.count(getId_zone(), TypeModule.LIVE_MODULE_X) +
+                    grid.count(getId_zone(), TypeModule.LIVE_MODULE_Y);
             countSport *= 3;
-            if(countLive > countSport){
-                countPeople = countSport * 8;
-            }
-            else {
-                countPeople = countLive * 8;
-            }
             return Math.min(100, 100 - (countSport - countLive) / countSport * 100);
         }
         return null;
     }
 
     @Override
-    public void getProduction(int idZone, List<Module> modules, List<Long> production) {
-        production.set(TypeResources.WT.ordinal(), production.get(TypeResources.WT.ordinal()) + 40L * countPeople);
-    }
+    public void getProduction(int idZone, List<Module> modules, List<Long> production) {}
 
     @Override
     public void getConsumption(int idZone, List<Module> modules, List<Long> consumption) {
@@ -1,10 +1,6 @@
 package bfg.backend.service.logic.zones;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.Arrays;
-import java.util.stream.IntStream;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class Area {
     private String name;
@@ -12,29 +8,35 @@ public class Area {
     private Integer longitudeSecond;
     private Integer illumination;
     private int[] ways;
-    private Cell[][] cells;
+    private final Terrain terrain;
+    // Клетки строятся из рельефа только при первом обращении (отдача зоны на фронт)
+    private volatile Cell[][] cells;
 
-    Area(int illumination, String file, String name){
+    Area(int zone, int illumination){
         this.illumination = illumination;
-        this.name = name;
+        this.name = Zones.getNames().get(zone);
+        this.terrain = Terrain.load(zone);
+        ways = terrain.getWays();
+        widthSecond = terrain.getWidthSecond(0, 0);
+        longitudeSecond = terrain.getLongitudeSecond(0, 0);
+    }
 
-        try(BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String[] c = br.readLine().split(" ");
-            int w = Integer.parseInt(c[0]);
-            int h = Integer.parseInt(c[1]);
-            cells = new Cell[h][w];
-            for (int i = 0; i < h; i++) {
-                String[] con = br.readLine().split(";");
-                for (int j = 0; j < w; j++) {
-                    cells[i][j] = new Cell(con[j]);
-                }
-            }
-            ways = Arrays.stream(br.readLine().split(" ")).flatMapToInt(s -> IntStream.of(Integer.parseInt(s))).toArray();
-            widthSecond = cells[0][0].getWidthSecond();
-            longitudeSecond = cells[0][0].getLongitudeSecond();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Оценка рельефа под модулем w x h с левым верхним углом (x, y) и допустимым углом наклона maxAngle.
+     * null, если модуль выходит за границы зоны или наклон слишком велик
+     */
+    public Integer relief(int x, int y, int w, int h, double maxAngle) {
+        if (x < 0 || y < 0 || x + w > terrain.getColumns() || y + h > terrain.getRows()) {
+            return null;
         }
+        int res = (int) ((maxAngle - Math.max(0, terrain.getMaxAngle(x, y, w, h))) * 10);
+        if(res <= 0) return null;
+        return res;
+    }
+
+    @JsonIgnore
+    public Terrain getTerrain() {
+        return terrain;
     }
 
     public String getName() {
@@ -70,7 +72,18 @@ public class Area {
     }
 
     public Cell[][] getCells() {
-        return cells;
+        Cell[][] c = cells;
+        if (c == null) {
+            c = new Cell[terrain.getRows()][terrain.getColumns()];
+            for (int i = 0; i < c.length; i++) {
+                for (int j = 0; j < c[i].length; j++) {
+                    c[i][j] = new Cell(terrain.getHeight(j, i), terrain.getAngle(j, i),
+                            terrain.getWidthSecond(j, i), terrain.getLongitudeSecond(j, i));
+                }
+            }
+            cells = c;
+        }
+        return c;
     }
 
     public void setCells(Cell[][] cells) {
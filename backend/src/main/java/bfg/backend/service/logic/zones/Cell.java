@@ -22,6 +22,13 @@ public class Cell {
         return longitudeSecond;
     }
 
+    public Cell(int height, double angle, int widthSecond, int longitudeSecond){
+        this.height = height;
+        this.angle = angle;
+        this.widthSecond = widthSecond;
+        this.longitudeSecond = longitudeSecond;
+    }
+
     public Cell(String content){
         String[] c = content.split(" ");
         height = Integer.parseInt(c[0]);
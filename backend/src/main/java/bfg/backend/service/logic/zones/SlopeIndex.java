@@ -0,0 +1,125 @@
+package bfg.backend.service.logic.zones;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Двумерная разреженная таблица для поиска наибольшего угла наклона в прямоугольнике.
+ * Для блока 2^a x 2^b с левым верхним углом в клетке k хранится смещение (dx, dy) клетки с наибольшим углом
+ * внутри блока - один байт на клетку. Блоки строятся до стороны 2^(LEVELS - 1): любой отрезок длиной до 2^LEVELS
+ * покрывается двумя блоками, поэтому для модулей (сторона до 6) запрос выполняется за четыре сравнения.
+ * Уровень строится при первом запросе прямоугольника такого размера; блок 1 x 1 - сама клетка, он не хранится.
+ */
+class SlopeIndex {
+
+    private static final int LEVELS = 3;
+    // Смещение в байте: dy << SHIFT | dx, обе координаты меньше 2^(LEVELS - 1)
+    private static final int SHIFT = LEVELS - 1;
+    private static final int MASK = (1 << SHIFT) - 1;
+
+    private final Terrain terrain;
+    private final int columns;
+    private final int rows;
+    // Уровень a * LEVELS + b: смещения клеток с наибольшим углом в блоках 2^a x 2^b; null - еще не построен.
+    // Запросы идут из нескольких потоков (CheckPlaceService.checkMap)
+    private final AtomicReferenceArray<byte[]> levels = new AtomicReferenceArray<>(LEVELS * LEVELS);
+
+    SlopeIndex(Terrain terrain) {
+        this.terrain = terrain;
+        this.columns = terrain.getColumns();
+        this.rows = terrain.getRows();
+    }
+
+    /**
+     * Наибольший угол наклона в прямоугольнике w x h с левым верхним углом (x, y), лежащем внутри зоны
+     */
+    double maxAngle(int x, int y, int w, int h) {
+        int a = level(w);
+        int b = level(h);
+        byte[] blocks = blocks(a, b);
+        int bw = 1 << a;
+        int bh = 1 << b;
+        int best = -1;
+        // Последний блок прижат к правому (нижнему) краю и может перекрывать предыдущий
+        for (int i = y; ; i = Math.min(i + bh, y + h - bh)) {
+            for (int j = x; ; j = Math.min(j + bw, x + w - bw)) {
+                int k = i * columns + j;
+                if (blocks != null) k = cell(k, blocks[k]);
+                best = best < 0 ? k : max(best, k);
+                if (j == x + w - bw) break;
+            }
+            if (i == y + h - bh) break;
+        }
+        return terrain.getAngle(best);
+    }
+
+    private byte[] blocks(int a, int b) {
+        if (a == 0 && b == 0) return null;
+        int i = a * LEVELS + b;
+        byte[] blocks = levels.get(i);
+        if (blocks == null) {
+            synchronized (this) {
+                blocks = levels.get(i);
+                if (blocks == null) {
+                    blocks = build(a, b);
+                    levels.set(i, blocks);
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Блоки 2^a x 2^b удвоением: сначала по x из соседних блоков 2^(l-1) x 1, затем по y.
+     * Промежуточные уровни не сохраняются
+     */
+    private byte[] build(int a, int b) {
+        int size = columns * rows;
+        byte[] cur = new byte[size];
+        for (int l = 1; l <= a; l++) {
+            int half = 1 << (l - 1);
+            byte[] next = new byte[size];
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x + 2 * half <= columns; x++) {
+                    int k = y * columns + x;
+                    next[k] = offset(k, max(cell(k, cur[k]), cell(k + half, cur[k + half])));
+                }
+            }
+            cur = next;
+        }
+        for (int l = 1; l <= b; l++) {
+            int half = 1 << (l - 1);
+            byte[] next = new byte[size];
+            for (int y = 0; y + 2 * half <= rows; y++) {
+                for (int x = 0; x + (1 << a) <= columns; x++) {
+                    int k = y * columns + x;
+                    int below = k + half * columns;
+                    next[k] = offset(k, max(cell(k, cur[k]), cell(below, cur[below])));
+                }
+            }
+            cur = next;
+        }
+        return cur;
+    }
+
+    private int cell(int k, byte offset) {
+        return k + (offset >> SHIFT) * columns + (offset & MASK);
+    }
+
+    private byte offset(int k, int cell) {
+        int dy = cell / columns - k / columns;
+        int dx = cell % columns - k % columns;
+        return (byte) (dy << SHIFT | dx);
+    }
+
+    private static int level(int length) {
+        return Math.min(31 - Integer.numberOfLeadingZeros(length), LEVELS - 1);
+    }
+
+    private int max(int k1, int k2) {
+        return angle(k2) > angle(k1) ? k2 : k1;
+    }
+
+    private double angle(int k) {
+        return terrain.getAngle(k);
+    }
+}
@@ -0,0 +1,225 @@
+package bfg.backend.service.logic.zones;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Рельеф зоны в виде примитивных массивов (высота, угол наклона, широта и долгота в секундах),
+ * хранящихся построчно: индекс клетки (x, y) равен y * width + x.
+ * <p>
+ * Бинарный формат (little-endian): заголовок из 6 int - MAGIC, VERSION, width, height,
+ * количество путей и 0; затем angle (double), height, widthSecond, longitudeSecond (int)
+ * по width * height значений и пути (int). Файлы .terrain собираются из текстовых
+ * при сборке (TerrainCompiler) и читаются через отображение файла в память.
+ */
+public class Terrain {
+
+    static final int MAGIC = 0x4D4F4F4E; // "MOON"
+    static final int VERSION = 1;
+    private static final int HEADER = 6 * Integer.BYTES;
+
+    public static final String BINARY = ".terrain";
+    public static final String TEXT = ".txt";
+
+    private final int width;
+    private final int height;
+    private final DoubleBuffer angles;
+    private final IntBuffer heights;
+    private final IntBuffer widthSeconds;
+    private final IntBuffer longitudeSeconds;
+    private final int[] ways;
+    private final SlopeIndex slopes;
+
+    private Terrain(int width, int height, DoubleBuffer angles, IntBuffer heights,
+                    IntBuffer widthSeconds, IntBuffer longitudeSeconds, int[] ways) {
+        this.width = width;
+        this.height = height;
+        this.angles = angles;
+        this.heights = heights;
+        this.widthSeconds = widthSeconds;
+        this.longitudeSeconds = longitudeSeconds;
+        this.ways = ways;
+        this.slopes = new SlopeIndex(this);
+    }
+
+    /**
+     * Загружает рельеф зоны из classpath: zones/zoneN.terrain (N - номер зоны), а если его нет (запуск без сборки) -
+     * zones/имя зоны.txt. Бинарные файлы названы по номеру: ресурс с кириллическим именем из папки
+     * не находится без UTF-8 локали
+     */
+    public static Terrain load(int zone) {
+        String name = Zones.getNames().get(zone);
+        try {
+            URL binary = Terrain.class.getResource("/zones/" + binaryName(zone));
+            if (binary != null) {
+                return read(map(binary));
+            }
+            try (InputStream in = Terrain.class.getResourceAsStream("/zones/" + name + TEXT)) {
+                if (in == null) {
+                    throw new RuntimeException("Не найден файл зоны " + name);
+                }
+                return parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static String binaryName(int zone) {
+        return "zone" + zone + BINARY;
+    }
+
+    /**
+     * Отображает ресурс в память. Ресурс внутри jar сначала копируется во временный файл.
+     */
+    private static ByteBuffer map(URL url) throws IOException, URISyntaxException {
+        Path path;
+        if ("file".equals(url.getProtocol())) {
+            path = Path.of(url.toURI());
+        } else {
+            path = Files.createTempFile("zone", BINARY);
+            path.toFile().deleteOnExit();
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static Terrain read(ByteBuffer buffer) {
+        buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new RuntimeException("Неверный формат файла зоны");
+        }
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int count = buffer.getInt(16);
+        int size = width * height;
+
+        int offset = HEADER;
+        DoubleBuffer angles = slice(buffer, offset, size * Double.BYTES).asDoubleBuffer();
+        offset += size * Double.BYTES;
+        IntBuffer heights = slice(buffer, offset, size * Integer.BYTES).asIntBuffer();
+        offset += size * Integer.BYTES;
+        IntBuffer widthSeconds = slice(buffer, offset, size * Integer.BYTES).asIntBuffer();
+        offset += size * Integer.BYTES;
+        IntBuffer longitudeSeconds = slice(buffer, offset, size * Integer.BYTES).asIntBuffer();
+        offset += size * Integer.BYTES;
+        int[] ways = new int[count];
+        slice(buffer, offset, count * Integer.BYTES).asIntBuffer().get(ways);
+        return new Terrain(width, height, angles, heights, widthSeconds, longitudeSeconds, ways);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        return buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Текстовый формат: первая строка "w h", затем h строк из w клеток
+     * "высота угол широта долгота;", последняя строка - пути до других зон
+     */
+    static Terrain parse(BufferedReader br) throws IOException {
+        String[] c = br.readLine().split(" ");
+        int width = Integer.parseInt(c[0]);
+        int height = Integer.parseInt(c[1]);
+        double[] angles = new double[width * height];
+        int[] heights = new int[width * height];
+        int[] widthSeconds = new int[width * height];
+        int[] longitudeSeconds = new int[width * height];
+        for (int i = 0; i < height; i++) {
+            String[] con = br.readLine().split(";");
+            for (int j = 0; j < width; j++) {
+                String[] v = con[j].split(" ");
+                int k = i * width + j;
+                heights[k] = Integer.parseInt(v[0]);
+                angles[k] = Double.parseDouble(v[1]);
+                widthSeconds[k] = Integer.parseInt(v[2]);
+                longitudeSeconds[k] = Integer.parseInt(v[3]);
+            }
+        }
+        int[] ways = Arrays.stream(br.readLine().split(" ")).mapToInt(Integer::parseInt).toArray();
+        return new Terrain(width, height, DoubleBuffer.wrap(angles), IntBuffer.wrap(heights),
+                IntBuffer.wrap(widthSeconds), IntBuffer.wrap(longitudeSeconds), ways);
+    }
+
+    void write(OutputStream out) throws IOException {
+        int size = width * height;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + size * (Double.BYTES + 3 * Integer.BYTES) + ways.length * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(ways.length).putInt(0);
+        for (int k = 0; k < size; k++) buffer.putDouble(angles.get(k));
+        for (int k = 0; k < size; k++) buffer.putInt(heights.get(k));
+        for (int k = 0; k < size; k++) buffer.putInt(widthSeconds.get(k));
+        for (int k = 0; k < size; k++) buffer.putInt(longitudeSeconds.get(k));
+        for (int way : ways) buffer.putInt(way);
+        out.write(buffer.array());
+    }
+
+    public int getColumns() {
+        return width;
+    }
+
+    public int getRows() {
+        return height;
+    }
+
+    public int getHeight(int x, int y) {
+        return heights.get(index(x, y));
+    }
+
+    public double getAngle(int x, int y) {
+        return angles.get(index(x, y));
+    }
+
+    public int getWidthSecond(int x, int y) {
+        return widthSeconds.get(index(x, y));
+    }
+
+    public int getLongitudeSecond(int x, int y) {
+        return longitudeSeconds.get(index(x, y));
+    }
+
+    /**
+     * Наибольший угол наклона под прямоугольником w x h с левым верхним углом (x, y), за O(1)
+     */
+    public double getMaxAngle(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) {
+            throw new IllegalArgumentException("Пустой прямоугольник " + w + "x" + h);
+        }
+        index(x, y);
+        index(x + w - 1, y + h - 1);
+        return slopes.maxAngle(x, y, w, h);
+    }
+
+    double getAngle(int index) {
+        return angles.get(index);
+    }
+
+    public int[] getWays() {
+        return ways;
+    }
+
+    private int index(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new ArrayIndexOutOfBoundsException("(" + x + ", " + y + ") вне зоны " + width + "x" + height);
+        }
+        return y * width + x;
+    }
+}
@@ -0,0 +1,55 @@
+package bfg.backend.service.logic.zones;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Переводит текстовые файлы зон в бинарный формат Terrain.
+ * Запускается при сборке (exec-maven-plugin, фаза process-classes):
+ * TerrainCompiler src/main/resources/zones target/classes/zones
+ */
+public class TerrainCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: TerrainCompiler <папка с .txt> <папка для .terrain>");
+            System.exit(1);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        Files.createDirectories(target);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(source, "*" + Terrain.TEXT)) {
+            for (Path file : files) {
+                String name = name(file);
+                int zone = Zones.getNames().indexOf(name);
+                if (zone < 0) {
+                    throw new RuntimeException("Неизвестная зона " + name);
+                }
+                Terrain terrain;
+                try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    terrain = Terrain.parse(br);
+                }
+                Path out = target.resolve(Terrain.binaryName(zone));
+                try (OutputStream os = Files.newOutputStream(out)) {
+                    terrain.write(os);
+                }
+                System.out.println(file + " -> " + out);
+            }
+        }
+    }
+
+    /**
+     * Имя зоны по файлу name.txt. Берется из URI (байты имени в UTF-8), а не из Path.toString:
+     * без UTF-8 локали кириллица в нем теряется
+     */
+    private static String name(Path file) {
+        String path = file.toUri().getPath();
+        return path.substring(path.lastIndexOf('/') + 1, path.length() - Terrain.TEXT.length());
+    }
+}
@@ -6,19 +6,26 @@ import java.util.List;
 import static bfg.backend.service.logic.Constants.ILLUMINATION;
 
 public class Zones {
-    private static final List<Area> areas;
     private static final int LENGTH = 6;
+    private static final List<String> NAMES = List.of("Равнина 1","Равнина 2","Высота 1","Высота 2","Низина 1","Низина 2");
 
-    static {
-        areas = new ArrayList<>(LENGTH);
-        String[] names = {"Равнина 1","Равнина 2","Высота 1","Высота 2","Низина 1","Низина 2"};
-        String path = System.getProperty("user.dir") + "/src/main/resources/zones/";
-        for (int i = 0; i < LENGTH; i++) {
-            areas.add(new Area(ILLUMINATION[i], path + names[i] + ".txt", names[i]));
+    // Рельеф загружается при первом getZones(), а не при обращении к именам (TerrainCompiler во время сборки)
+    private static class Loaded {
+        private static final List<Area> areas = new ArrayList<>(LENGTH);
+
+        static {
+            for (int i = 0; i < LENGTH; i++) {
+                areas.add(new Area(i, ILLUMINATION[i]));
+            }
         }
     }
 
-    public static List<Area> getZones(){return areas;}
+    public static List<Area> getZones(){return Loaded.areas;}
+
+    /**
+     * Имена зон по номеру
+     */
+    public static List<String> getNames(){return NAMES;}
 
     public static int getLength(){return LENGTH;}
 }
@@ -0,0 +1,106 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Граф зависимостей против полного пересчета: модуль, результат которого изменился после добавления
+ * или удаления другого модуля, должен быть найден графом.
+ */
+class DependencyGraphTest {
+
+    @Test
+    void affectedCoversChangedOutput() {
+        for (long seed = 1; seed <= 5; seed++) {
+            RandomColony colony = new RandomColony(seed);
+            List<Module> modules = colony.modules(60);
+            for (int step = 0; step < 60; step++) {
+                List<Module> before = new ArrayList<>(modules);
+                Module changed;
+                if (colony.random().nextInt(3) == 0) {
+                    changed = modules.remove(colony.random().nextInt(modules.size()));
+                } else {
+                    changed = colony.module();
+                    modules.add(changed);
+                }
+
+                Set<Long> affected = new HashSet<>();
+                for (Module module : DependencyGraph.affected(DependencyGraph.Facet.OUTPUT, changed, modules)) {
+                    affected.add(module.getId());
+                }
+                for (Module module : modules) {
+                    if (Objects.equals(module.getId(), changed.getId()) || !before.contains(module)) continue;
+                    if (!output(module, before).equals(output(module, modules))) {
+                        assertTrue(affected.contains(module.getId()), "seed " + seed + ", step " + step + ": output of " +
+                                TypeModule.of(module.getModule_type()) + " changed after " +
+                                TypeModule.of(changed.getModule_type()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void affectsCoversChangedRationality() {
+        for (long seed = 1; seed <= 5; seed++) {
+            RandomColony colony = new RandomColony(seed);
+            List<Module> modules = colony.modules(60);
+            List<Resource> resources = colony.resources();
+            for (int step = 0; step < 60; step++) {
+                List<Module> before = new ArrayList<>(modules);
+                Module changed;
+                if (colony.random().nextInt(3) == 0) {
+                    changed = modules.remove(colony.random().nextInt(modules.size()));
+                } else {
+                    changed = colony.module();
+                    modules.add(changed);
+                }
+
+                for (Module module : modules) {
+                    TypeModule type = TypeModule.of(module.getModule_type());
+                    // Остальные считаются каждый раз и в кэше не хранятся
+                    if (module == changed || !DependencyGraph.isCacheable(type)) continue;
+                    if (!Objects.equals(rationality(module, before, resources), rationality(module, modules, resources))) {
+                        assertTrue(DependencyGraph.affects(DependencyGraph.Facet.RATIONALITY, changed, module),
+                                "seed " + seed + ", step " + step + ": rationality of " + type + " changed after " +
+                                        TypeModule.of(changed.getModule_type()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Long> output(Module module, List<Module> modules) {
+        List<Long> production = zeros();
+        List<Long> consumption = zeros();
+        // Обычный список и новый компонент: без кэшей ColonyModules
+        Component component = TypeModule.of(module.getModule_type()).createModule(module);
+        component.getProduction(-1, new ArrayList<>(modules), production);
+        component.getConsumption(-1, new ArrayList<>(modules), consumption);
+        production.addAll(consumption);
+        return production;
+    }
+
+    private static Integer rationality(Module module, List<Module> modules, List<Resource> resources) {
+        Component component = TypeModule.of(module.getModule_type()).createModule(module);
+        return component.getRationality(new ArrayList<>(modules), new ArrayList<Link>(), resources);
+    }
+
+    private static List<Long> zeros() {
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < TypeResources.values().length; i++) {
+            values.add(0L);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,96 @@
+package bfg.backend.service.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static bfg.backend.service.logic.Constants.DAYS_DELIVERY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Прогноз исчерпания против прокрутки дней через DaySimulator.
+ */
+class DepletionForecastTest {
+
+    // Запас не больше 1000 при приросте не меньше -1 кончается за 1001 день
+    private static final int DAYS = 1200;
+
+    @Test
+    void forecastMatchesSimulation() {
+        Random random = new Random(1);
+        int n = TypeResources.values().length;
+        for (int test = 0; test < 2000; test++) {
+            long[] count = new long[n];
+            long[] production = new long[n];
+            long[] consumption = new long[n];
+            for (int i = 0; i < n; i++) {
+                count[i] = random.nextInt(1010) - 10;
+                production[i] = random.nextInt(100);
+                consumption[i] = random.nextInt(100);
+            }
+            // 0 - доставок больше нет
+            int daysBeforeDelivery = random.nextInt(DAYS_DELIVERY + 1);
+
+            assertArrayEquals(simulate(count, production, consumption, daysBeforeDelivery),
+                    DepletionForecast.of(count, production, consumption, daysBeforeDelivery),
+                    "test " + test + ", days before delivery " + daysBeforeDelivery);
+        }
+    }
+
+    @Test
+    void deliveryOnDepletionDay() {
+        int n = TypeResources.values().length;
+        int o2 = TypeResources.O2.ordinal();
+        int wt = TypeResources.WT.ordinal();
+        int food = TypeResources.FOOD.ordinal();
+        long[] count = new long[n];
+        long[] production = new long[n];
+        long[] consumption = new long[n];
+        // Без недостатка кислорода электролиз не меняет энергию
+        count[o2] = 1000;
+        // 100 - 10 * k < 0 впервые при k = 11
+        count[food] = 100;
+        consumption[food] = 10;
+        count[wt] = 100;
+        consumption[wt] = 10;
+
+        // Доставка в день исчерпания успевает
+        long[] forecast = DepletionForecast.of(count, production, consumption, 11);
+        assertEquals(DepletionForecast.NEVER, forecast[food]);
+        // Энергию не доставляют
+        assertEquals(11L, forecast[wt]);
+        assertArrayEquals(simulate(count, production, consumption, 11), forecast);
+
+        // Доставка на день позже
+        forecast = DepletionForecast.of(count, production, consumption, 12);
+        assertEquals(11L, forecast[food]);
+        assertEquals(11L, forecast[wt]);
+        assertArrayEquals(simulate(count, production, consumption, 12), forecast);
+    }
+
+    // Первый день, в конце которого запас отрицателен, по правилам DayService
+    private static long[] simulate(long[] startCount, long[] startProduction, long[] startConsumption,
+                                   int daysBeforeDelivery) {
+        int n = startCount.length;
+        long[] count = startCount.clone();
+        long[] production = startProduction.clone();
+        long[] consumption = startConsumption.clone();
+        long[] sumProduction = new long[n];
+        long[] sumConsumption = new long[n];
+        long[] diff = new long[n];
+        long[] days = new long[n];
+        Arrays.fill(days, DepletionForecast.NEVER);
+        for (int day = 1; day <= DAYS; day++) {
+            boolean delivery = daysBeforeDelivery == 1;
+            daysBeforeDelivery = delivery ? DAYS_DELIVERY : daysBeforeDelivery - 1;
+            DaySimulator.electrolysis(production, consumption);
+            DaySimulator.nextDay(count, production, consumption, sumProduction, sumConsumption, delivery, diff);
+            for (int i = 0; i < n; i++) {
+                if (count[i] < 0 && days[i] == DepletionForecast.NEVER) days[i] = day;
+            }
+        }
+        return days;
+    }
+}
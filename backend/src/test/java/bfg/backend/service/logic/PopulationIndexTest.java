@@ -0,0 +1,84 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поддерживаемый индекс людей против прежнего прохода по отсортированному списку модулей.
+ */
+class PopulationIndexTest {
+
+    @Test
+    void incrementalIndexMatchesScan() {
+        for (long seed = 1; seed <= 5; seed++) {
+            RandomColony colony = new RandomColony(seed);
+            ColonyModules modules = new ColonyModules(colony.modules(40));
+            List<Module> removed = new ArrayList<>();
+            for (int step = 0; step < 200; step++) {
+                int action = colony.random().nextInt(4);
+                if (action == 0 && !modules.isEmpty()) {
+                    removed.add(modules.remove(colony.random().nextInt(modules.size())));
+                } else if (action == 1 && !removed.isEmpty()) {
+                    // Модуль со старым id, меньшим, чем у последних построенных
+                    modules.add(removed.remove(colony.random().nextInt(removed.size())));
+                } else {
+                    modules.add(colony.module());
+                }
+
+                PopulationIndex rebuilt = new PopulationIndex(new ArrayList<>(modules));
+                List<Long> ids = new ArrayList<>();
+                for (Module module : modules) ids.add(module.getId());
+                for (Module module : removed) ids.add(module.getId());
+                ids.add(0L);
+                ids.add(Long.MAX_VALUE);
+                for (long id : ids) {
+                    String message = "seed " + seed + ", step " + step + ", id " + id;
+                    assertEquals(enoughPeople(modules, id), modules.getPopulation().enoughPeople(id), message);
+                    assertEquals(enoughPeople(modules, id), rebuilt.enoughPeople(id), message);
+                    assertEquals(needBefore(modules, id), modules.getPopulation().needBefore(id), message);
+                    assertEquals(needBefore(modules, id), rebuilt.needBefore(id), message);
+                }
+            }
+        }
+    }
+
+    // Прежний проход: жители всех жилых модулей против потребности модулей до id включительно
+    private static boolean enoughPeople(List<Module> list, long id) {
+        List<Module> modules = new ArrayList<>(list);
+        modules.sort(Module::compareTo);
+        int countPeople = 0;
+        int needPeople = 0;
+        boolean cur = false;
+        for (Module module : modules) {
+            if (isHousing(module)) {
+                countPeople += 8;
+                continue;
+            }
+            if (!cur) {
+                needPeople += TypeModule.of(module.getModule_type()).getPeople();
+            }
+            if (module.getId() == id) cur = true;
+        }
+        return countPeople >= needPeople;
+    }
+
+    private static int needBefore(List<Module> modules, long id) {
+        int needPeople = 0;
+        for (Module module : modules) {
+            if (!isHousing(module) && module.getId() < id) {
+                needPeople += TypeModule.of(module.getModule_type()).getPeople();
+            }
+        }
+        return needPeople;
+    }
+
+    private static boolean isHousing(Module module) {
+        return module.getModule_type() == TypeModule.LIVE_MODULE_Y.ordinal() ||
+                module.getModule_type() == TypeModule.LIVE_MODULE_X.ordinal();
+    }
+}
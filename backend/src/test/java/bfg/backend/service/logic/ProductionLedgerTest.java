@@ -0,0 +1,40 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.module.Module;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductionLedgerTest {
+
+    @Test
+    void incrementalChangesMatchFullRecount() {
+        for (long seed = 1; seed <= 5; seed++) {
+            RandomColony colony = new RandomColony(seed);
+            ColonyModules modules = new ColonyModules(colony.modules(60));
+            ProductionLedger ledger = ProductionLedger.recount(modules);
+
+            for (int step = 0; step < 150; step++) {
+                if (colony.random().nextInt(3) == 0 && modules.size() > 1) {
+                    Module removed = modules.get(colony.random().nextInt(modules.size()));
+                    modules.remove(removed);
+                    ledger.remove(removed, modules);
+                } else {
+                    Module added = colony.module();
+                    modules.add(added);
+                    ledger.add(added, modules);
+                }
+
+                // Обычный список: компоненты создаются заново, без кэшей ColonyModules
+                ProductionLedger full = ProductionLedger.recount(new ArrayList<>(modules));
+                assertTrue(ledger.matches(full), "seed " + seed + ", step " + step + ": production " +
+                        Arrays.toString(ledger.getProduction()) + " != " + Arrays.toString(full.getProduction()) +
+                        ", consumption " + Arrays.toString(ledger.getConsumption()) + " != " +
+                        Arrays.toString(full.getConsumption()));
+            }
+        }
+    }
+}
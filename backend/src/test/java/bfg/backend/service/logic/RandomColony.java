@@ -0,0 +1,75 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.repository.module.Module;
+import bfg.backend.repository.resource.Resource;
+import bfg.backend.service.logic.zones.Terrain;
+import bfg.backend.service.logic.zones.Zones;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Случайные колонии для тестов: в каждой зоне административный модуль, около трети модулей - жилые.
+ * Модули стоят тесно (угол в квадрате SIDE x SIDE), чтобы пересечения, ремонт и затенение срабатывали.
+ */
+class RandomColony {
+
+    private static final int SIDE = 40;
+
+    private final Random random;
+    private long nextId = 1;
+
+    RandomColony(long seed) {
+        this.random = new Random(seed);
+    }
+
+    Random random() {
+        return random;
+    }
+
+    List<Module> modules(int count) {
+        List<Module> modules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TypeModule type = i < Zones.getLength() ? TypeModule.ADMINISTRATIVE_MODULE : type();
+            modules.add(module(i < Zones.getLength() ? i : random.nextInt(Zones.getLength()), type));
+        }
+        return modules;
+    }
+
+    /**
+     * Модуль с id больше всех выданных раньше
+     */
+    Module module() {
+        return module(random.nextInt(Zones.getLength()), type());
+    }
+
+    List<Resource> resources() {
+        List<Resource> resources = new ArrayList<>();
+        for (TypeResources type : TypeResources.values()) {
+            resources.add(new Resource(new Resource.PrimaryKey(type.ordinal(), 1L),
+                    1_000_000L, 1_000L, 1_000L, 0L, 0L));
+        }
+        return resources;
+    }
+
+    Link link() {
+        int zone1 = random.nextInt(Zones.getLength());
+        int zone2 = random.nextInt(Zones.getLength());
+        return new Link(new Link.PrimaryKey(random.nextInt(2), 1L, zone1, zone2));
+    }
+
+    private Module module(int zone, TypeModule type) {
+        Terrain terrain = Zones.getZones().get(zone).getTerrain();
+        return new Module(nextId++, 1L, zone, type.ordinal(),
+                random.nextInt(Math.min(SIDE, terrain.getColumns())), random.nextInt(Math.min(SIDE, terrain.getRows())));
+    }
+
+    private TypeModule type() {
+        if (random.nextInt(3) == 0) {
+            return random.nextBoolean() ? TypeModule.LIVE_MODULE_X : TypeModule.LIVE_MODULE_Y;
+        }
+        return TypeModule.values()[random.nextInt(TypeModule.values().length)];
+    }
+}
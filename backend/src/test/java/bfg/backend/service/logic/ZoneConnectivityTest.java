@@ -0,0 +1,95 @@
+package bfg.backend.service.logic;
+
+import bfg.backend.repository.link.Link;
+import bfg.backend.service.logic.zones.Zones;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Поддерживаемая связность зон против обхода в ширину по текущим связям, в том числе после удалений.
+ */
+class ZoneConnectivityTest {
+
+    @Test
+    void connectivityMatchesSearch() {
+        // Зона за пределами карты увеличивает число зон
+        int zones = Zones.getLength() + 2;
+        for (long seed = 1; seed <= 5; seed++) {
+            RandomColony colony = new RandomColony(seed);
+            ColonyLinks links = new ColonyLinks();
+            for (int step = 0; step < 300; step++) {
+                if (colony.random().nextInt(3) == 0 && !links.isEmpty()) {
+                    links.remove(colony.random().nextInt(links.size()));
+                } else if (colony.random().nextInt(20) == 0) {
+                    links.add(new Link(new Link.PrimaryKey(0, 1L, colony.random().nextInt(zones), Zones.getLength() + 1)));
+                } else {
+                    links.add(colony.link());
+                }
+
+                String message = "seed " + seed + ", step " + step;
+                // Запросы чередуются с изменениями, чтобы проверить и дополнение структуры, и перестройку
+                for (int a = 0; a < zones; a++) {
+                    for (int b = 0; b < zones; b++) {
+                        assertEquals(connected(links, a, b), links.getConnectivity().connected(a, b), message);
+                    }
+                }
+                assertEquals(connected(links, 0, zones - 1), new ZoneConnectivity(links).connected(0, zones - 1), message);
+                assertFalse(links.getConnectivity().connected(0, zones + 10), message);
+            }
+        }
+    }
+
+    @Test
+    void parallelQueriesAfterPrepare() {
+        RandomColony colony = new RandomColony(7);
+        ColonyLinks links = new ColonyLinks();
+        for (int step = 0; step < 50; step++) {
+            if (step % 4 == 3) {
+                links.remove(colony.random().nextInt(links.size()));
+            } else {
+                links.add(colony.link());
+            }
+            links.getConnectivity().prepare();
+            int zones = Zones.getLength();
+            long wrong = IntStream.range(0, zones * zones).parallel()
+                    .filter(i -> connected(links, i / zones, i % zones) !=
+                            links.getConnectivity().connected(i / zones, i % zones))
+                    .count();
+            assertEquals(0L, wrong, "step " + step);
+        }
+    }
+
+    private static boolean connected(List<Link> links, int from, int to) {
+        if (from == to) return true;
+        Set<Integer> visited = new HashSet<>();
+        Queue<Integer> queue = new ArrayDeque<>();
+        visited.add(from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int zone = queue.poll();
+            for (Link link : links) {
+                if (link.getPrimaryKey().getType() != 0) continue;
+                int next;
+                if (link.getPrimaryKey().getId_zone1() == zone) {
+                    next = link.getPrimaryKey().getId_zone2();
+                } else if (link.getPrimaryKey().getId_zone2() == zone) {
+                    next = link.getPrimaryKey().getId_zone1();
+                } else {
+                    continue;
+                }
+                if (next == to) return true;
+                if (visited.add(next)) queue.add(next);
+            }
+        }
+        return false;
+    }
+}